@@ -0,0 +1,72 @@
+package cn.classfun.utils.bench;
+import cn.classfun.utils.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * 文件读取的性能测试
+ * 测试文件在准备阶段创建，结束后删除（读取时通常在页缓存中）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileBenchmark{
+	@Param({"4096","1048576","67108864"})
+	public int size;
+
+	private File file;
+
+	/**
+	 * 每个线程独立的复制目标，多个线程不会同时写入同一个文件
+	 */
+	@State(Scope.Thread)
+	public static class Target{
+		File copy;
+
+		@Setup(Level.Trial)
+		public void setup()throws IOException{
+			copy=File.createTempFile("bench",".copy");
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown(){
+			if(!copy.delete())copy.deleteOnExit();
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup()throws IOException{
+		file=File.createTempFile("bench",".bin");
+		byte[]b=new byte[size];
+		new Random(size).nextBytes(b);
+		for(int i=0;i<b.length;i++)b[i]=(byte)('a'+(b[i]&15));//保持为有效的UTF-8
+		try(FileOutputStream out=new FileOutputStream(file)){out.write(b);}
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown(){
+		if(!file.delete())file.deleteOnExit();
+	}
+
+	@Benchmark
+	public byte[] file2bytes()throws IOException{
+		return FileUtils.file2bytes(file);
+	}
+
+	@Benchmark
+	public String file2string()throws IOException{
+		return FileUtils.file2string(file,StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public long file2file(Target t)throws IOException{
+		return FileUtils.file2file(file,t.copy);
+	}
+}
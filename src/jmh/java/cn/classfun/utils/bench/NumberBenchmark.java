@@ -0,0 +1,50 @@
+package cn.classfun.utils.bench;
+import cn.classfun.utils.NumberUtils;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+/**
+ * 随机数以及数字解析的性能测试
+ * 多线程时的竞争使用运行参数-t指定线程数测试
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberBenchmark{
+	@Param({"100","9223372036854775807"})
+	public long max;
+
+	@Param({"1024"})
+	public int count;
+
+	private long[]buf;
+	private final long[]out=new long[1];
+	private final String hex="1f2e3d4c5b6a7988";
+
+	@Setup
+	public void setup(){
+		buf=new long[count];
+	}
+
+	@Benchmark
+	public long random(){return NumberUtils.random(max,0);}
+
+	@Benchmark
+	public long baselineMathRandom(){return Math.round(Math.random()*max);}
+
+	@Benchmark
+	public long[] fill(){return NumberUtils.fill(buf,max,0);}
+
+	@Benchmark
+	public long randoms(){return NumberUtils.randoms(count,max,0).sum();}
+
+	@Benchmark
+	public long parseHex(){
+		return NumberUtils.tryParseLong(hex,0,hex.length(),16,out)?out[0]:-1;
+	}
+
+	@Benchmark
+	public long baselineParseHex(){return Long.parseUnsignedLong(hex,16);}
+}
@@ -0,0 +1,68 @@
+package cn.classfun.utils.bench;
+import cn.classfun.utils.StreamUtils;
+import org.openjdk.jmh.annotations.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+/**
+ * 输入输出流的性能测试
+ * 数据来自内存，只测试复制、读取以及解码本身
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamBenchmark{
+	@Param({"1024","65536","4194304"})
+	public int size;
+
+	@Param({"8192"})
+	public int buffer_size;
+
+	@Param({"UTF-8","ISO-8859-1"})
+	public String charset;
+
+	private byte[]data;
+	private Charset cs;
+	private final OutputStream sink=new OutputStream(){
+		@Override public void write(int b){}
+		@Override public void write(byte[]b,int off,int len){}
+	};
+
+	@Setup
+	public void setup(){
+		data=new byte[size];
+		Arrays.fill(data,(byte)'a');
+		cs=Charset.forName(charset);
+	}
+
+	@Benchmark
+	public long stream2stream()throws IOException{
+		return StreamUtils.stream2stream(new ByteArrayInputStream(data),sink,buffer_size,false);
+	}
+
+	@Benchmark
+	public byte[] stream2bytes()throws IOException{
+		return StreamUtils.stream2bytes(new ByteArrayInputStream(data),false);
+	}
+
+	@Benchmark
+	public byte[] stream2bytesSized()throws IOException{
+		return StreamUtils.stream2bytes(new ByteArrayInputStream(data),size,false);
+	}
+
+	@Benchmark
+	public String stream2string()throws IOException{
+		return StreamUtils.stream2string(new ByteArrayInputStream(data),cs,false);
+	}
+
+	@Benchmark
+	public String baseline(){
+		return new String(data,cs);
+	}
+}
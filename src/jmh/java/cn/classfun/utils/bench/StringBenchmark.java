@@ -0,0 +1,109 @@
+package cn.classfun.utils.bench;
+import cn.classfun.utils.ArrayUtils;
+import cn.classfun.utils.CharClass;
+import cn.classfun.utils.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * 字符串工具的性能测试
+ * 检测函数使用全部有效的输入（最坏情况，需要检测每个字符）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringBenchmark{
+	@Param({"16","1024","65536"})
+	public int length;
+
+	private String dec,hex,bin,valid;
+	private byte[]dec_bytes;
+	private String[]column;
+	private long[]sizes;
+
+	@Setup
+	public void setup(){
+		Random r=new Random(length);
+		char[]c=new char[length];
+		for(int i=0;i<length;i++)c[i]=(char)('0'+r.nextInt(10));
+		dec=new String(c);
+		for(int i=0;i<length;i++)c[i]="0123456789abcdefABCDEF".charAt(r.nextInt(22));
+		hex=new String(c);
+		for(int i=0;i<length;i++)c[i]=(char)('0'+r.nextInt(2));
+		bin=new String(c);
+		for(int i=0;i<length;i++)c[i]=StringUtils.valid.charAt(r.nextInt(StringUtils.valid.length()));
+		valid=new String(c);
+		dec_bytes=dec.getBytes(StandardCharsets.US_ASCII);
+		column=new String[length];
+		for(int i=0;i<length;i++)column[i]=Long.toString(r.nextLong()&Long.MAX_VALUE);
+		sizes=new long[1024];
+		for(int i=0;i<sizes.length;i++)sizes[i]=r.nextLong()>>>r.nextInt(64);
+	}
+
+	@Benchmark
+	public boolean validString(){return StringUtils.validString(valid);}
+
+	@Benchmark
+	public boolean validStringChars(){return StringUtils.validString(valid,StringUtils.valid);}
+
+	@Benchmark
+	public boolean validStringClass(){return StringUtils.validString(valid,CharClass.VALID);}
+
+	@Benchmark
+	public boolean isStringDec(){return StringUtils.isStringDec(dec);}
+
+	@Benchmark
+	public boolean isStringDecBytes(){return StringUtils.isStringDec(dec_bytes,0,dec_bytes.length);}
+
+	@Benchmark
+	public boolean isStringHex(){return StringUtils.isStringHex(hex);}
+
+	@Benchmark
+	public boolean isStringBin(){return StringUtils.isStringBin(bin);}
+
+	@Benchmark
+	public boolean isArrayDec(){return ArrayUtils.isArrayDec(column);}
+
+	@Benchmark
+	public void formatSize(Blackhole bh){
+		for(long s:sizes)bh.consume(StringUtils.formatSize(s));
+	}
+
+	@Benchmark
+	public void formatSizeBuilder(Blackhole bh){
+		StringBuilder sb=new StringBuilder(32);
+		for(long s:sizes){
+			sb.setLength(0);
+			bh.consume(StringUtils.formatSize(sb,s,2));
+		}
+	}
+
+	@Benchmark
+	public String padLeft(){return StringUtils.padLeft(dec,' ',length*2);}
+
+	@Benchmark
+	public String padRight(){return StringUtils.padRight(dec,' ',length*2);}
+
+	@Benchmark
+	public String[] spiltLength(){return StringUtils.spiltLength(dec,8);}
+
+	@Benchmark
+	public void spiltLengthView(Blackhole bh){
+		Iterator<CharSequence>it=StringUtils.spiltLengthIterator(dec,8);
+		while(it.hasNext())bh.consume(it.next());
+	}
+
+	@Benchmark
+	public String[] baselineSplit(){
+		String[]r=new String[(length+7)/8];
+		Arrays.setAll(r,i->dec.substring(i*8,Math.min(length,i*8+8)));
+		return r;
+	}
+}
@@ -1,12 +1,26 @@
 package cn.classfun.utils;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
 import static cn.classfun.utils.ObjectUtils.requireNonNull;
 import static cn.classfun.utils.StringUtils.*;
 /**
  * 数组工具
+ * 批量操作在元素数量超过{@link #PARALLEL_THRESHOLD}时自动使用{@link java.util.concurrent.ForkJoinPool}并行处理，
+ * 查找失败的元素时，找到后其他任务中位于其后的部分立即停止
  */
 @SuppressWarnings({"unused","RedundantSuppression"})
 public final class ArrayUtils{
 	private ArrayUtils(){throw new RuntimeException();}
+	public static final int PARALLEL_THRESHOLD=1<<14;//超过该数量时并行处理
+	private static final int LEAF_SIZE=PARALLEL_THRESHOLD>>2;//并行处理时每个任务的最小数量
+	private static final int CHECK_MASK=1023;//每处理1024个元素检测一次是否需要停止
 
 	/**
 	 * 在一个字符串数组找出最长的一个字符串的长度
@@ -18,11 +32,25 @@ public final class ArrayUtils{
 	 * @return 最长字符串的长度
 	 */
 	public static long arrayStringMaxLen(String[]arr){
+		if(requireNonNull(arr).length>=PARALLEL_THRESHOLD)return arrayStringMaxLen(Arrays.asList(arr));
 		long cur=0;
-		for(String s:requireNonNull(arr))cur=Math.max(cur,s.length());
+		for(String s:arr)cur=Math.max(cur,s.length());
 		return cur;
 	}
 
+	/**
+	 * 在一组字符串中找出最长的一个字符串的长度
+	 * （注：数量超过{@link #PARALLEL_THRESHOLD}并且可以拆分时并行处理）
+	 * @see #arrayStringMaxLen(String[])
+	 * @param list 字符串集合
+	 * @return 最长字符串的长度（为空时为0）
+	 */
+	public static long arrayStringMaxLen(Iterable<? extends CharSequence>list){
+		Spliterator<? extends CharSequence>sp=requireNonNull(list).spliterator();
+		return StreamSupport.stream(sp,sp.estimateSize()>=PARALLEL_THRESHOLD)
+			.mapToLong(CharSequence::length).max().orElse(0);
+	}
+
 	/**
 	 * 判断数组的每个字符串的每个字符是否为十进制的有效值(是否在0-9之间)
 	 * <p>示例:</p>
@@ -34,9 +62,7 @@ public final class ArrayUtils{
 	 * @return 数组的每个字符串的每个字符是否在0-9之间
 	 */
 	public static boolean isArrayDec(String[]s){
-		if(s==null||s.length<=0)return false;
-		for(String ss:s)if(!isStringDec(ss))return false;
-		return true;
+		return isArrayOf(s,CharClass.DEC);
 	}
 
 	/**
@@ -50,9 +76,7 @@ public final class ArrayUtils{
 	 * @return 数组的每个字符串的每个字符是否在0-1之间
 	 */
 	public static boolean isArrayBin(String[]s){
-		if(s==null||s.length<=0)return false;
-		for(String ss:s)if(!isStringBin(ss))return false;
-		return true;
+		return isArrayOf(s,CharClass.BIN);
 	}
 
 	/**
@@ -66,8 +90,183 @@ public final class ArrayUtils{
 	 * @return 数组的每个字符串的每个字符是否在0-9之间
 	 */
 	public static boolean isArrayHex(String[]s){
+		return isArrayOf(s,CharClass.HEX);
+	}
+
+	/**
+	 * 判断数组的每个字符串的每个字符是否都在指定的字符集合中
+	 * （注：数组为空或者包含空字符串时返回false）
+	 * <p>示例:</p>
+	 * <p>  isArrayOf(new String[]{"abc","a_b"},CharClass.VALID) = true</p>
+	 * <p>  isArrayOf(new String[]{"abc","a b"},CharClass.VALID) = false</p>
+	 * @see StringUtils#isStringOf(CharSequence,CharClass)
+	 * @param s 输入字符串数组
+	 * @param cls 预编译的字符集合
+	 * @return 数组的每个字符串的每个字符是否都在字符集合中
+	 */
+	public static boolean isArrayOf(String[]s,CharClass cls){
 		if(s==null||s.length<=0)return false;
-		for(String ss:s)if(!isStringHex(ss))return false;
-		return true;
+		return indexOfMismatch(s,cls)<0;
+	}
+
+	/**
+	 * 判断每个字符串的每个字符是否都在指定的字符集合中
+	 * （注：集合为空或者包含空字符串时返回false）
+	 * @see #isArrayOf(String[],CharClass)
+	 * @param list 字符串集合
+	 * @param cls 预编译的字符集合
+	 * @return 每个字符串的每个字符是否都在字符集合中
+	 */
+	public static boolean isArrayOf(List<? extends CharSequence>list,CharClass cls){
+		if(list==null||list.isEmpty())return false;
+		return indexOfMismatch(list,cls)<0;
+	}
+
+	/**
+	 * 查找第一个不完全由字符集合中的字符组成的字符串
+	 * （注：null以及空字符串视为不匹配）
+	 * <p>示例:</p>
+	 * <p>  indexOfMismatch(new String[]{"12","34","5x"},CharClass.DEC) = 2</p>
+	 * <p>  indexOfMismatch(new String[]{"12","34"},CharClass.DEC) = -1</p>
+	 * @see #indexOfMismatch(List,CharClass)
+	 * @param arr 字符串数组
+	 * @param cls 预编译的字符集合
+	 * @return 第一个不匹配的字符串的位置（全部匹配时为-1）
+	 */
+	public static int indexOfMismatch(String[]arr,CharClass cls){
+		return indexOfMismatch(Arrays.asList(requireNonNull(arr)),cls);
+	}
+
+	/**
+	 * 查找第一个不完全由字符集合中的字符组成的字符串
+	 * 数量超过{@link #PARALLEL_THRESHOLD}时并行处理
+	 * （注：null以及空字符串视为不匹配）
+	 * @param list 字符串集合
+	 * @param cls 预编译的字符集合
+	 * @return 第一个不匹配的字符串的位置（全部匹配时为-1）
+	 */
+	public static int indexOfMismatch(List<? extends CharSequence>list,CharClass cls){
+		requireNonNull(cls);
+		if(!(requireNonNull(list)instanceof RandomAccess))return (int)indexOfMismatch(list.spliterator(),cls);
+		int size=list.size();
+		if(size<PARALLEL_THRESHOLD){
+			for(int i=0;i<size;i++)if(!isStringOf(list.get(i),cls))return i;
+			return -1;
+		}
+		AtomicInteger found=new AtomicInteger(Integer.MAX_VALUE);
+		new ListTask(list,cls,0,size,found).invoke();
+		int i=found.get();
+		return i==Integer.MAX_VALUE?-1:i;
+	}
+
+	/**
+	 * 查找第一个不完全由字符集合中的字符组成的字符串
+	 * 实际调用{@link #indexOfMismatch(Spliterator,CharClass)}
+	 * @param list 字符串集合
+	 * @param cls 预编译的字符集合
+	 * @return 第一个不匹配的字符串的位置（全部匹配时为-1）
+	 */
+	public static long indexOfMismatch(Iterable<? extends CharSequence>list,CharClass cls){
+		if(list instanceof List)return indexOfMismatch((List<? extends CharSequence>)list,cls);
+		return indexOfMismatch(requireNonNull(list).spliterator(),cls);
+	}
+
+	/**
+	 * 查找第一个不完全由字符集合中的字符组成的字符串
+	 * 数量超过{@link #PARALLEL_THRESHOLD}并且拆分后的大小已知（{@link Spliterator#SUBSIZED}）时并行处理，
+	 * 否则在当前线程中按顺序处理
+	 * （注：null以及空字符串视为不匹配，会消耗sp中的元素）
+	 * @param sp 字符串的来源
+	 * @param cls 预编译的字符集合
+	 * @return 第一个不匹配的字符串的位置（全部匹配时为-1）
+	 */
+	public static long indexOfMismatch(Spliterator<? extends CharSequence>sp,CharClass cls){
+		AtomicLong found=new AtomicLong(Long.MAX_VALUE);
+		boolean parallel=requireNonNull(sp).hasCharacteristics(Spliterator.SUBSIZED)&&sp.estimateSize()>=PARALLEL_THRESHOLD;
+		new SpliteratorTask(sp,requireNonNull(cls),parallel,0,found).invoke();
+		long i=found.get();
+		return i==Long.MAX_VALUE?-1:i;
+	}
+
+	/**
+	 * 并行检测随机访问列表的一部分
+	 */
+	private static final class ListTask extends RecursiveAction{
+		private static final long serialVersionUID=1L;
+		private final List<? extends CharSequence>list;
+		private final CharClass cls;
+		private final int lo,hi;
+		private final AtomicInteger found;//已找到的最小位置
+
+		ListTask(List<? extends CharSequence>list,CharClass cls,int lo,int hi,AtomicInteger found){
+			this.list=list;
+			this.cls=cls;
+			this.lo=lo;
+			this.hi=hi;
+			this.found=found;
+		}
+
+		@Override
+		protected void compute(){
+			if(found.get()<lo)return;//前面已经找到，不需要检测
+			if(hi-lo>LEAF_SIZE){
+				int mid=(lo+hi)>>>1;
+				invokeAll(new ListTask(list,cls,lo,mid,found),new ListTask(list,cls,mid,hi,found));
+				return;
+			}
+			for(int i=lo;i<hi;i++){
+				if((i&CHECK_MASK)==0&&found.get()<i)return;
+				if(!isStringOf(list.get(i),cls)){
+					found.accumulateAndGet(i,Math::min);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 并行检测{@link Spliterator}的一部分
+	 */
+	private static final class SpliteratorTask extends RecursiveAction implements Consumer<CharSequence>{
+		private static final long serialVersionUID=1L;
+		private final Spliterator<? extends CharSequence>sp;
+		private final CharClass cls;
+		private final boolean parallel;
+		private final AtomicLong found;//已找到的最小位置
+		private long index;//当前元素的位置
+		private boolean failed=false;
+
+		SpliteratorTask(Spliterator<? extends CharSequence>sp,CharClass cls,boolean parallel,long base,AtomicLong found){
+			this.sp=sp;
+			this.cls=cls;
+			this.parallel=parallel;
+			this.index=base;
+			this.found=found;
+		}
+
+		@Override
+		public void accept(CharSequence s){
+			if(isStringOf(s,cls))index++;
+			else failed=true;
+		}
+
+		@Override
+		protected void compute(){
+			if(found.get()<index)return;//前面已经找到，不需要检测
+			if(parallel&&sp.estimateSize()>LEAF_SIZE){
+				Spliterator<? extends CharSequence>prefix=sp.trySplit();
+				if(prefix!=null){
+					long n=prefix.getExactSizeIfKnown();
+					invokeAll(
+						new SpliteratorTask(prefix,cls,true,index,found),
+						new SpliteratorTask(sp,cls,true,index+n,found)
+					);
+					return;
+				}
+			}
+			while(!failed&&sp.tryAdvance(this))
+				if((index&CHECK_MASK)==0&&found.get()<index)return;
+			if(failed)found.accumulateAndGet(index,Math::min);
+		}
 	}
 }
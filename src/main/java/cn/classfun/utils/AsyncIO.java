@@ -0,0 +1,422 @@
+package cn.classfun.utils;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.Checksum;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 异步输入输出
+ * 所有操作都返回{@link CompletableFuture}，不会阻塞调用线程。
+ * 文件读取使用{@link AsynchronousFileChannel}，其他阻塞操作在线程池中执行
+ * （运行时支持时使用虚拟线程，否则使用守护线程）。
+ * 同时进行的操作数量有上限，超过上限的操作排队等待，不会占用线程或者文件描述符
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class AsyncIO{
+	public static final int DEFAULT_MAX_CONCURRENCY=256;//默认同时进行的操作数量
+	public static final AsyncIO DEFAULT=new AsyncIO(defaultExecutor(),DEFAULT_MAX_CONCURRENCY);
+	private final Executor executor;
+	private final int max_concurrency;
+	private final AtomicInteger active=new AtomicInteger();
+	private final AtomicInteger draining=new AtomicInteger();//请求启动排队操作的次数（不为0时已经有线程在启动）
+	private final Queue<Runnable>pending=new ConcurrentLinkedQueue<>();
+
+	/**
+	 * 创建异步输入输出
+	 * @param executor 执行阻塞操作的线程池
+	 * @param max_concurrency 同时进行的操作数量上限
+	 */
+	public AsyncIO(Executor executor,int max_concurrency){
+		if(max_concurrency<=0)throw new IllegalArgumentException("max concurrency must be positive");
+		this.executor=requireNonNull(executor);
+		this.max_concurrency=max_concurrency;
+	}
+
+	/**
+	 * 创建默认的线程池
+	 * 运行时支持虚拟线程（Java 21及以上）时使用虚拟线程，否则使用守护线程
+	 * @return 线程池
+	 */
+	public static ExecutorService defaultExecutor(){
+		try{
+			Method m=Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)m.invoke(null);
+		}catch(ReflectiveOperationException|RuntimeException e){
+			AtomicInteger n=new AtomicInteger();
+			return Executors.newCachedThreadPool(r->{
+				Thread t=new Thread(r,"classfun-io-"+n.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * 获取正在进行的操作数量
+	 * @return 操作数量
+	 */
+	public int active(){return active.get();}
+
+	/**
+	 * 获取正在排队的操作数量
+	 * @return 操作数量
+	 */
+	public int pending(){return pending.size();}
+
+	/**
+	 * 在不超过上限时开始排队的操作
+	 * 同一时刻只有一个线程在启动操作，其他线程（包括同步完成的操作的回调）只增加请求次数后返回，
+	 * 由正在启动的线程再检查一遍，因此不会递归
+	 */
+	private void drain(){
+		if(draining.getAndIncrement()!=0)return;
+		do{
+			for(;;){
+				int a=active.get();
+				if(a>=max_concurrency||pending.isEmpty())break;
+				if(!active.compareAndSet(a,a+1))continue;
+				Runnable r=pending.poll();
+				if(r==null){
+					active.decrementAndGet();
+					break;
+				}
+				r.run();
+			}
+		}while(draining.decrementAndGet()!=0);
+	}
+
+	/**
+	 * 提交一个受数量上限控制的异步操作
+	 * @param op 开始操作并返回结果
+	 * @param <T> 结果类型
+	 * @return 操作结果
+	 */
+	public <T>CompletableFuture<T> submit(Supplier<CompletableFuture<T>>op){
+		CompletableFuture<T>result=new CompletableFuture<>();
+		pending.offer(()->{
+			CompletableFuture<T>f;
+			try{f=op.get();}
+			catch(Throwable e){
+				f=new CompletableFuture<>();
+				f.completeExceptionally(e);
+			}
+			f.whenComplete((v,e)->{
+				active.decrementAndGet();
+				if(e!=null)result.completeExceptionally(e);
+				else result.complete(v);
+				drain();
+			});
+		});
+		drain();
+		return result;
+	}
+
+	/**
+	 * 在线程池中执行一个阻塞操作
+	 * @param op 阻塞操作
+	 * @param <T> 结果类型
+	 * @return 操作结果
+	 */
+	public <T>CompletableFuture<T> run(IOSupplier<T>op){
+		return submit(()->{
+			CompletableFuture<T>f=new CompletableFuture<>();
+			executor.execute(()->{
+				try{f.complete(op.get());}
+				catch(Throwable e){f.completeExceptionally(e);}
+			});
+			return f;
+		});
+	}
+
+	/**
+	 * 可以抛出{@link IOException}的操作
+	 * @param <T> 结果类型
+	 */
+	@FunctionalInterface
+	public interface IOSupplier<T>{
+		T get()throws IOException;
+	}
+
+	/**
+	 * 批量复制中一项的结果
+	 */
+	public static final class CopyResult{
+		private final long bytes;
+		private final byte[][]digests;
+		private final long[]checksums;
+		private final Throwable error;
+
+		CopyResult(long bytes,byte[][]digests,long[]checksums,Throwable error){
+			this.bytes=bytes;
+			this.digests=digests;
+			this.checksums=checksums;
+			this.error=error;
+		}
+
+		/**
+		 * 判断是否复制成功
+		 * @return 是否成功
+		 */
+		public boolean ok(){return error==null;}
+
+		/**
+		 * 获取复制失败的原因
+		 * @return 失败的原因（成功时为null）
+		 */
+		public Throwable error(){return error;}
+
+		/**
+		 * 获取复制的字节数
+		 * @return 复制的字节数（失败时为-1）
+		 */
+		public long bytes(){return bytes;}
+
+		/**
+		 * 获取摘要
+		 * @param i 摘要算法的位置（与复制时指定的顺序相同）
+		 * @return 摘要（失败时为null）
+		 */
+		public byte[] digest(int i){return error==null?digests[i].clone():null;}
+
+		/**
+		 * 获取校验和
+		 * @param i 校验和的位置（与复制时指定的顺序相同）
+		 * @return 校验和（失败时为-1）
+		 */
+		public long checksum(int i){return error==null?checksums[i]:-1;}
+	}
+
+	/**
+	 * 批量复制中的一项
+	 */
+	@FunctionalInterface
+	private interface CopyItem{
+		/**
+		 * 复制第i项
+		 * （注：需要在打开或者接管流之后再调用{@link Hashers#create()}，创建失败时流也会被关闭）
+		 */
+		long copy(int i,Hashers h)throws IOException;
+	}
+
+	/**
+	 * 批量复制中一项使用的摘要以及校验和
+	 */
+	private static final class Hashers{
+		private final String[]algorithms;
+		private final List<? extends Supplier<? extends Checksum>>factories;
+		MessageDigest[]digests;
+		Checksum[]checksums;
+
+		Hashers(String[]algorithms,List<? extends Supplier<? extends Checksum>>factories){
+			this.algorithms=algorithms;
+			this.factories=factories;
+		}
+
+		void create(){
+			digests=new MessageDigest[algorithms.length];
+			checksums=new Checksum[factories.size()];
+			for(int j=0;j<digests.length;j++)digests[j]=newDigest(algorithms[j]);
+			for(int j=0;j<checksums.length;j++)checksums[j]=factories.get(j).get();
+		}
+	}
+
+	/**
+	 * 批量复制，每一项都在线程池中执行，同时进行的数量不超过上限
+	 */
+	private CompletableFuture<List<CopyResult>> copyAll(int count,String[]algorithms,List<? extends Supplier<? extends Checksum>>checksums,CopyItem item){
+		String[]algs=algorithms==null?new String[0]:algorithms.clone();
+		List<? extends Supplier<? extends Checksum>>sums=checksums==null?Collections.emptyList():checksums;
+		for(String alg:algs)newDigest(alg);//提前检测算法是否存在
+		List<CompletableFuture<CopyResult>>tasks=new ArrayList<>(count);
+		for(int i=0;i<count;i++){
+			int index=i;
+			tasks.add(run(()->{
+				Hashers h=new Hashers(algs,sums);
+				long n=item.copy(index,h);
+				MessageDigest[]d=h.digests;
+				Checksum[]c=h.checksums;
+				byte[][]dr=new byte[d.length][];
+				long[]cr=new long[c.length];
+				for(int j=0;j<d.length;j++)dr[j]=d[j].digest();
+				for(int j=0;j<c.length;j++)cr[j]=c[j].getValue();
+				return new CopyResult(n,dr,cr,null);
+			}).handle((r,e)->{
+				if(e==null)return r;
+				if(e instanceof CompletionException&&e.getCause()!=null)e=e.getCause();
+				return new CopyResult(-1,null,null,e);
+			}));
+		}
+		return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).thenApply(v->{
+			List<CopyResult>r=new ArrayList<>(count);
+			for(CompletableFuture<CopyResult>t:tasks)r.add(t.join());
+			return r;
+		});
+	}
+
+	private static MessageDigest newDigest(String algorithm){
+		try{
+			return MessageDigest.getInstance(algorithm);
+		}catch(NoSuchAlgorithmException e){
+			throw new IllegalArgumentException("unknown digest algorithm: "+algorithm,e);
+		}
+	}
+
+	/**
+	 * 批量异步将输入流复制到输出流中，同时计算摘要以及校验和
+	 * 每一项单独计算摘要以及校验和，一项失败不影响其他项，同时进行的数量不超过上限
+	 * 实际调用{@link StreamUtils#stream2stream(InputStream,OutputStream,int,boolean,BufferPool,MessageDigest[],Checksum[])}
+	 * <p>示例:</p>
+	 * <p>  io.copyAll(ins,outs,8192,new String[]{"SHA-256"},Collections.singletonList(CRC32::new))</p>
+	 * （注：复制完成或者失败后所有的流都会被关闭）
+	 * @param in 输入流（复制的来源）
+	 * @param out 输出流（复制的目标，与in一一对应）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @param algorithms 摘要算法的名称（可以为null）
+	 * @param checksums 创建校验和的方法（可以为null）
+	 * @return 每一项的结果（顺序与in相同）
+	 */
+	public CompletableFuture<List<CopyResult>> copyAll(InputStream[]in,OutputStream[]out,int buffer_size,String[]algorithms,List<? extends Supplier<? extends Checksum>>checksums){
+		if(requireNonNull(in).length!=requireNonNull(out).length)throw new IllegalArgumentException("input and output count mismatch");
+		return copyAll(in.length,algorithms,checksums,(i,h)->{
+			try(InputStream is=in[i];OutputStream os=out[i]){
+				h.create();
+				return StreamUtils.stream2stream(is,os,buffer_size,false,BufferPool.DEFAULT,h.digests,h.checksums);
+			}
+		});
+	}
+
+	/**
+	 * 批量异步复制文件，同时计算摘要以及校验和
+	 * 每一项单独计算摘要以及校验和，一项失败不影响其他项，同时进行的数量不超过上限
+	 * 实际调用{@link FileUtils#file2file(File,File,MessageDigest[],Checksum[])}
+	 * @param src 来源文件（不能是文件夹）
+	 * @param dst 目标文件（不能是文件夹，与src一一对应）
+	 * @param algorithms 摘要算法的名称（可以为null）
+	 * @param checksums 创建校验和的方法（可以为null）
+	 * @return 每一项的结果（顺序与src相同）
+	 */
+	public CompletableFuture<List<CopyResult>> copyAll(File[]src,File[]dst,String[]algorithms,List<? extends Supplier<? extends Checksum>>checksums){
+		if(requireNonNull(src).length!=requireNonNull(dst).length)throw new IllegalArgumentException("source and destination count mismatch");
+		return copyAll(src.length,algorithms,checksums,(i,h)->{
+			h.create();
+			return FileUtils.file2file(src[i],dst[i],h.digests,h.checksums);
+		});
+	}
+
+	/**
+	 * 异步读取文件为二进制数组
+	 * 使用{@link AsynchronousFileChannel}，读取期间不占用线程
+	 * （注：由于int类型的限制，该函数最大支持2GB的文件）
+	 * @param file 文件（不能是文件夹）
+	 * @return 二进制数组（读取文件成功后的数据）
+	 */
+	public CompletableFuture<byte[]> file2bytes(File file){
+		return submit(()->{
+			CompletableFuture<byte[]>f=new CompletableFuture<>();
+			AsynchronousFileChannel ch;
+			long size;
+			try{
+				ch=AsynchronousFileChannel.open(file.toPath(),StandardOpenOption.READ);
+				size=ch.size();
+				if(size>ChunkedBytes.MAX_ARRAY_SIZE){
+					ch.close();
+					throw new IOException("file too large for an array: "+size);
+				}
+			}catch(IOException e){
+				f.completeExceptionally(e);
+				return f;
+			}
+			byte[]b=new byte[(int)size];
+			ByteBuffer buf=ByteBuffer.wrap(b);
+			ch.read(buf,0,null,new CompletionHandler<Integer,Void>(){
+				@Override
+				public void completed(Integer n,Void v){
+					if(n>=0&&buf.hasRemaining()){//继续读取剩余的部分
+						ch.read(buf,buf.position(),null,this);
+						return;
+					}
+					close();
+					f.complete(buf.hasRemaining()?Arrays.copyOf(b,buf.position()):b);//文件可能在读取期间变小
+				}
+				@Override
+				public void failed(Throwable e,Void v){
+					close();
+					f.completeExceptionally(e);
+				}
+				private void close(){
+					try{ch.close();}
+					catch(IOException ignored){}
+				}
+			});
+			return f;
+		});
+	}
+
+	/**
+	 * 异步读取文件为字符串（指定字符集）
+	 * 实际调用{@link #file2bytes(File)}
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @return 字符串（读取文件成功后的数据）
+	 */
+	public CompletableFuture<String> file2string(File file,Charset charset){
+		return file2bytes(file).thenApply(b->new String(b,charset));
+	}
+
+	/**
+	 * 异步将输入流读取成二进制数组
+	 * 实际调用{@link StreamUtils#stream2bytes(InputStream,boolean)}
+	 * @param in 输入流（读取来源）
+	 * @param close 是否自动关闭
+	 * @return 二进制数组（读取成功后的数据）
+	 */
+	public CompletableFuture<byte[]> read(InputStream in,boolean close){
+		return run(()->StreamUtils.stream2bytes(in,close));
+	}
+
+	/**
+	 * 异步将输入流复制到输出流中
+	 * 实际调用{@link StreamUtils#stream2stream(InputStream,OutputStream,int,boolean)}
+	 * @param in 输入流（复制的来源）
+	 * @param out 输出流（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @param close 是否在复制完成后自动关闭
+	 * @return 复制的字节数
+	 */
+	public CompletableFuture<Long> copy(InputStream in,OutputStream out,int buffer_size,boolean close){
+		return run(()->StreamUtils.stream2stream(in,out,buffer_size,close));
+	}
+
+	/**
+	 * 异步复制文件
+	 * 实际调用{@link FileUtils#file2file(File,File)}
+	 * @param src 来源文件（不能是文件夹）
+	 * @param dst 目标文件（不能是文件夹）
+	 * @return 复制的字节数
+	 */
+	public CompletableFuture<Long> copy(File src,File dst){
+		return run(()->FileUtils.file2file(src,dst));
+	}
+}
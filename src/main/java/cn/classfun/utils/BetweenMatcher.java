@@ -0,0 +1,346 @@
+package cn.classfun.utils;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 预编译的多组标记匹配器
+ * 将多组开始与结束标记编译为一个Aho-Corasick自动机（确定性状态表），
+ * 一次遍历即可取出所有组的内容，与多次调用{@link StringUtils#getBetween(String,String,String,boolean)}的结果相同
+ * <p>示例:</p>
+ * <p>  BetweenMatcher m=BetweenMatcher.of(false,"id=",";","name=\"","\"");</p>
+ * <p>  m.extract("id=12;name=\"abc\"") = {"12","abc"}</p>
+ * （注：编译后不可修改，可以在多个线程中使用）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class BetweenMatcher{
+	private final int pairs;
+	private final boolean tag;
+	private final Automaton chars;//字符的自动机
+	private final Automaton bytes;//UTF-8字节的自动机
+	private final int[][]starts_of,ends_of;//每个标记作为哪些组的开始以及结束
+
+	/**
+	 * 找到一组标记之间的内容时的回调
+	 */
+	@FunctionalInterface
+	public interface Listener{
+		/**
+		 * 找到一组标记之间的内容
+		 * @param pair 组的序号
+		 * @param start 内容的开始位置
+		 * @param end 内容的结束位置（不包含）
+		 * @return 是否继续查找
+		 */
+		boolean onMatch(int pair,int start,int end);
+	}
+
+	/**
+	 * 编译标记
+	 * @param starts 每一组的开始标记（不能为空）
+	 * @param ends 每一组的结束标记（不能为空）
+	 * @param tag 结果是否包含开始和结束标记
+	 */
+	public BetweenMatcher(String[]starts,String[]ends,boolean tag){
+		if(requireNonNull(starts).length!=requireNonNull(ends).length)
+			throw new IllegalArgumentException("starts and ends must have the same length");
+		this.pairs=starts.length;
+		this.tag=tag;
+		Map<String,Integer>ids=new HashMap<>();
+		List<String>markers=new ArrayList<>();
+		int[]sid=new int[pairs],eid=new int[pairs];
+		for(int i=0;i<pairs;i++){
+			String s=starts[i],e=ends[i];
+			if(s==null||s.isEmpty()||e==null||e.isEmpty())throw new IllegalArgumentException("markers must not be empty");
+			sid[i]=ids.computeIfAbsent(s,k->{markers.add(k);return markers.size()-1;});
+			eid[i]=ids.computeIfAbsent(e,k->{markers.add(k);return markers.size()-1;});
+		}
+		int n=markers.size();
+		this.starts_of=group(sid,n);
+		this.ends_of=group(eid,n);
+		int[][]cp=new int[n][],bp=new int[n][];
+		for(int i=0;i<n;i++){
+			String m=markers.get(i);
+			cp[i]=new int[m.length()];
+			for(int j=0;j<m.length();j++)cp[i][j]=m.charAt(j);
+			byte[]b=m.getBytes(StandardCharsets.UTF_8);
+			bp[i]=new int[b.length];
+			for(int j=0;j<b.length;j++)bp[i][j]=b[j]&0xFF;
+		}
+		this.chars=new Automaton(cp);
+		this.bytes=new Automaton(bp);
+	}
+
+	/**
+	 * 编译标记
+	 * @param tag 结果是否包含开始和结束标记
+	 * @param markers 依次为每一组的开始和结束标记
+	 * @return 匹配器
+	 */
+	public static BetweenMatcher of(boolean tag,String...markers){
+		if(requireNonNull(markers).length%2!=0)throw new IllegalArgumentException("markers must be start/end pairs");
+		String[]s=new String[markers.length/2],e=new String[markers.length/2];
+		for(int i=0;i<s.length;i++){
+			s[i]=markers[i*2];
+			e[i]=markers[i*2+1];
+		}
+		return new BetweenMatcher(s,e,tag);
+	}
+
+	/**
+	 * 按标记分组
+	 * @param id 每一组的标记序号
+	 * @param n 标记数量
+	 * @return 每个标记对应的组
+	 */
+	private static int[][] group(int[]id,int n){
+		int[]count=new int[n];
+		for(int i:id)count[i]++;
+		int[][]r=new int[n][];
+		for(int i=0;i<n;i++)r[i]=new int[count[i]];
+		Arrays.fill(count,0);
+		for(int i=0;i<id.length;i++)r[id[i]][count[id[i]]++]=i;
+		return r;
+	}
+
+	/**
+	 * 获取组数
+	 * @return 组数
+	 */
+	public int pairs(){return pairs;}
+
+	/**
+	 * 确定性的Aho-Corasick自动机
+	 * 标记中出现的字符压缩为连续的序号，状态转移使用一维表
+	 */
+	private static final class Automaton{
+		final int[]classes;//字符对应的序号（0表示没有出现在标记中）
+		final int width;//每个状态的转移数量
+		final int[]next;//状态转移表
+		final int[][]out;//每个状态结束的标记
+		final int[]length;//每个标记的长度
+
+		Automaton(int[][]patterns){
+			int max=0;
+			for(int[]p:patterns)for(int c:p)max=Math.max(max,c);
+			classes=new int[max+1];
+			int w=1;
+			for(int[]p:patterns)for(int c:p)if(classes[c]==0)classes[c]=w++;
+			width=w;
+			length=new int[patterns.length];
+			List<int[]>rows=new ArrayList<>();
+			List<int[]>outs=new ArrayList<>();
+			rows.add(newRow(w));
+			outs.add(null);
+			for(int i=0;i<patterns.length;i++){//建立字典树
+				int s=0;
+				for(int c:patterns[i]){
+					int k=classes[c];
+					if(rows.get(s)[k]<0){
+						rows.get(s)[k]=rows.size();
+						rows.add(newRow(w));
+						outs.add(null);
+					}
+					s=rows.get(s)[k];
+				}
+				outs.set(s,append(outs.get(s),i));
+				length[i]=patterns[i].length;
+			}
+			int[]fail=new int[rows.size()];
+			ArrayDeque<Integer>queue=new ArrayDeque<>();
+			queue.add(0);
+			while(!queue.isEmpty()){//按广度优先补全转移，使每个状态的转移都是确定的
+				int s=queue.poll();
+				int[]row=rows.get(s);
+				for(int k=0;k<w;k++){
+					int t=row[k];
+					if(t<0){//没有子节点，使用失败状态的转移
+						row[k]=s==0?0:rows.get(fail[s])[k];
+						continue;
+					}
+					fail[t]=s==0?0:rows.get(fail[s])[k];
+					int[]o=outs.get(fail[t]);
+					if(o!=null)for(int p:o)outs.set(t,append(outs.get(t),p));
+					queue.add(t);
+				}
+			}
+			next=new int[rows.size()*w];
+			for(int i=0;i<rows.size();i++)System.arraycopy(rows.get(i),0,next,i*w,w);
+			out=outs.toArray(new int[0][]);
+		}
+
+		private static int[] newRow(int w){
+			int[]r=new int[w];
+			Arrays.fill(r,-1);
+			return r;
+		}
+
+		private static int[] append(int[]a,int v){
+			if(a==null)return new int[]{v};
+			int[]r=Arrays.copyOf(a,a.length+1);
+			r[a.length]=v;
+			return r;
+		}
+	}
+
+	/**
+	 * 一次查找的状态
+	 */
+	private final class Scan{
+		final int[]open=new int[pairs];//开始标记之后的位置（未找到时为-1）
+		final int[]tag_start=new int[pairs];//开始标记的位置
+		final int[]resume=new int[pairs];//继续查找开始标记的位置
+		final boolean all;
+		final Listener listener;
+		int closed=0;
+		boolean stop=false;
+
+		Scan(boolean all,Listener listener,int from){
+			this.all=all;
+			this.listener=listener;
+			Arrays.fill(open,-1);
+			Arrays.fill(resume,from);
+		}
+
+		/**
+		 * 处理在end位置结束的标记
+		 */
+		void hit(int[]markers,int[]length,int end){
+			for(int m:markers){//先处理结束标记
+				int begin=end-length[m];
+				for(int p:ends_of[m]){
+					if(open[p]<0||begin<open[p])continue;
+					boolean more=tag?listener.onMatch(p,tag_start[p],end):listener.onMatch(p,open[p],begin);
+					open[p]=-1;
+					resume[p]=all?end:Integer.MAX_VALUE;
+					closed++;
+					if(!more){
+						stop=true;
+						return;
+					}
+				}
+			}
+			for(int m:markers){
+				int begin=end-length[m];
+				for(int p:starts_of[m]){
+					if(open[p]>=0||begin<resume[p])continue;
+					open[p]=end;
+					tag_start[p]=begin;
+				}
+			}
+		}
+
+		boolean done(){return stop||!all&&closed==pairs;}
+	}
+
+	/**
+	 * 查找所有组的内容
+	 * @param s 字符串
+	 * @param all 是否查找所有出现的位置（否则每组只查找第一次出现的位置）
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @param l 回调
+	 */
+	private void scan(CharSequence s,int start,int end,boolean all,Listener l){
+		Automaton a=chars;
+		Scan sc=new Scan(all,l,start);
+		int[]cls=a.classes,next=a.next,len=a.length;
+		int[][]out=a.out;
+		int w=a.width,st=0;
+		for(int i=start;i<end;i++){
+			char ch=s.charAt(i);
+			st=next[st*w+(ch<cls.length?cls[ch]:0)];
+			int[]o=out[st];
+			if(o!=null){
+				sc.hit(o,len,i+1);
+				if(sc.done())return;
+			}
+		}
+	}
+
+	/**
+	 * 查找所有组的内容（UTF-8字节）
+	 */
+	private void scan(byte[]b,int start,int end,boolean all,Listener l){
+		Automaton a=bytes;
+		Scan sc=new Scan(all,l,start);
+		int[]cls=a.classes,next=a.next,len=a.length;
+		int[][]out=a.out;
+		int w=a.width,st=0;
+		for(int i=start;i<end;i++){
+			int ch=b[i]&0xFF;
+			st=next[st*w+(ch<cls.length?cls[ch]:0)];
+			int[]o=out[st];
+			if(o!=null){
+				sc.hit(o,len,i+1);
+				if(sc.done())return;
+			}
+		}
+	}
+
+	/**
+	 * 查找所有组的所有内容
+	 * 每组找到后从结束标记之后继续查找，与{@link StringUtils#getBetweenAll(CharSequence,CharSequence,CharSequence,boolean)}相同
+	 * @param s 字符串
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @param l 回调（返回false时停止查找）
+	 */
+	public void find(CharSequence s,int start,int end,Listener l){
+		scan(requireNonNull(s),start,end,true,requireNonNull(l));
+	}
+
+	/**
+	 * 查找所有组的所有内容（UTF-8字节）
+	 * 标记使用UTF-8编码后匹配，回调中的位置为字节的位置
+	 * @see #find(CharSequence,int,int,Listener)
+	 * @param b 二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param l 回调（返回false时停止查找）
+	 */
+	public void find(byte[]b,int off,int len,Listener l){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+		scan(b,off,off+len,true,requireNonNull(l));
+	}
+
+	/**
+	 * 取出每一组第一次出现的内容，返回不复制内容的视图
+	 * 与对每一组调用{@link StringUtils#getBetweenView(CharSequence,CharSequence,CharSequence,boolean)}的结果相同，
+	 * 所有组都找到后立即停止
+	 * @param s 字符串
+	 * @return 每一组的内容（找不到时为null）
+	 */
+	public CharSequence[] extract(CharSequence s){
+		CharSequence[]r=new CharSequence[pairs];
+		scan(requireNonNull(s),0,s.length(),false,(p,a,b)->{
+			r[p]=CharBuffer.wrap(s,a,b);
+			return true;
+		});
+		return r;
+	}
+
+	/**
+	 * 取出每一组第一次出现的内容（UTF-8字节），返回不复制内容的视图
+	 * @see #extract(CharSequence)
+	 * @param b 二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每一组的内容（找不到时为null）
+	 */
+	public ByteBuffer[] extract(byte[]b,int off,int len){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+		ByteBuffer[]r=new ByteBuffer[pairs];
+		scan(b,off,off+len,false,(p,x,y)->{
+			r[p]=ByteBuffer.wrap(b,x,y-x).slice();
+			return true;
+		});
+		return r;
+	}
+}
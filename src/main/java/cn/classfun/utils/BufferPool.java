@@ -0,0 +1,252 @@
+package cn.classfun.utils;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * 缓冲区池
+ * 按2的幂次分级缓存二进制数组以及直接缓冲区，减少临时缓冲区的分配。
+ * 每个线程先使用自己的缓存，然后使用有上限的全局空闲列表。
+ * <p>示例:</p>
+ * <p>  byte[]b=BufferPool.DEFAULT.acquire(8192);</p>
+ * <p>  try{...}finally{BufferPool.DEFAULT.release(b);}</p>
+ * （注：归还后不能再使用该缓冲区）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class BufferPool{
+	public static final int MIN_SHIFT=9,MAX_SHIFT=20;//最小512B，最大1MB
+	public static final int MIN_SIZE=1<<MIN_SHIFT,MAX_SIZE=1<<MAX_SHIFT;
+	public static final int LOCAL_MAX_SIZE=1<<16;//超过64KB的缓冲区不在线程中缓存
+	private static final int CLASSES=MAX_SHIFT-MIN_SHIFT+1;
+	public static final BufferPool DEFAULT=new BufferPool(4,32);//默认缓冲区池
+	private final int local_capacity,global_capacity;
+	private final ThreadLocal<Local>local=ThreadLocal.withInitial(Local::new);
+	private final Free<byte[]>heap=new Free<>();
+	private final Free<ByteBuffer>direct=new Free<>();
+	private final LongAdder local_hits=new LongAdder();
+	private final LongAdder global_hits=new LongAdder();
+	private final LongAdder misses=new LongAdder();
+	private final LongAdder discards=new LongAdder();
+
+	/**
+	 * 全局空闲列表（每一级一个有上限的队列）
+	 */
+	private final class Free<T>{
+		@SuppressWarnings({"unchecked","rawtypes"})
+		final Queue<T>[]queues=new Queue[CLASSES];
+		final AtomicInteger[]counts=new AtomicInteger[CLASSES];
+		Free(){
+			for(int i=0;i<CLASSES;i++){
+				queues[i]=new ConcurrentLinkedQueue<>();
+				counts[i]=new AtomicInteger();
+			}
+		}
+		T poll(int c){
+			T t=queues[c].poll();
+			if(t!=null)counts[c].decrementAndGet();
+			return t;
+		}
+		boolean offer(int c,T t){
+			if(counts[c].incrementAndGet()>global_capacity){
+				counts[c].decrementAndGet();
+				return false;
+			}
+			queues[c].offer(t);
+			return true;
+		}
+	}
+
+	/**
+	 * 线程缓存（每一级一个固定大小的栈）
+	 */
+	private final class Local{
+		final byte[][][]heap=new byte[CLASSES][local_capacity][];
+		final ByteBuffer[][]direct=new ByteBuffer[CLASSES][local_capacity];
+		final int[]heap_count=new int[CLASSES];
+		final int[]direct_count=new int[CLASSES];
+	}
+
+	/**
+	 * 创建缓冲区池
+	 * @param local_capacity 每个线程每一级缓存的数量
+	 * @param global_capacity 全局空闲列表每一级缓存的数量
+	 */
+	public BufferPool(int local_capacity,int global_capacity){
+		if(local_capacity<0||global_capacity<0)throw new IllegalArgumentException("capacity must not be negative");
+		this.local_capacity=local_capacity;
+		this.global_capacity=global_capacity;
+	}
+
+	/**
+	 * 获取大小对应的级别
+	 * @param size 需要的大小
+	 * @return 级别（超出范围时为-1）
+	 */
+	private static int sizeClass(int size){
+		if(size<=MIN_SIZE)return 0;
+		if(size>MAX_SIZE)return -1;
+		return 32-Integer.numberOfLeadingZeros(size-1)-MIN_SHIFT;
+	}
+
+	/**
+	 * 获取已归还的缓冲区对应的级别
+	 * @param capacity 缓冲区的大小
+	 * @return 级别（不是池中的大小时为-1）
+	 */
+	private static int exactClass(int capacity){
+		if(capacity<MIN_SIZE||capacity>MAX_SIZE||Integer.bitCount(capacity)!=1)return -1;
+		return Integer.numberOfTrailingZeros(capacity)-MIN_SHIFT;
+	}
+
+	/**
+	 * 获取二进制数组
+	 * （注：返回的数组大小为不小于size的2的幂次，内容是未定义的）
+	 * @param size 需要的大小
+	 * @return 二进制数组
+	 */
+	public byte[] acquire(int size){
+		int c=sizeClass(size);
+		if(c<0){
+			misses.increment();
+			return new byte[size];
+		}
+		if((MIN_SIZE<<c)<=LOCAL_MAX_SIZE){
+			Local l=local.get();
+			if(l.heap_count[c]>0){
+				local_hits.increment();
+				byte[]b=l.heap[c][--l.heap_count[c]];
+				l.heap[c][l.heap_count[c]]=null;
+				return b;
+			}
+		}
+		byte[]b=heap.poll(c);
+		if(b!=null){
+			global_hits.increment();
+			return b;
+		}
+		misses.increment();
+		return new byte[MIN_SIZE<<c];
+	}
+
+	/**
+	 * 归还二进制数组
+	 * （注：不是由池分配的大小会被丢弃）
+	 * @param b 二进制数组（可以为null）
+	 */
+	public void release(byte[]b){
+		if(b==null)return;
+		int c=exactClass(b.length);
+		if(c<0){
+			discards.increment();
+			return;
+		}
+		if(b.length<=LOCAL_MAX_SIZE){
+			Local l=local.get();
+			if(l.heap_count[c]<local_capacity){
+				l.heap[c][l.heap_count[c]++]=b;
+				return;
+			}
+		}
+		if(!heap.offer(c,b))discards.increment();
+	}
+
+	/**
+	 * 获取直接缓冲区
+	 * （注：返回的缓冲区容量为不小于size的2的幂次，已经清空位置和限制）
+	 * @param size 需要的大小
+	 * @return 直接缓冲区
+	 */
+	public ByteBuffer acquireDirect(int size){
+		int c=sizeClass(size);
+		if(c<0){
+			misses.increment();
+			return ByteBuffer.allocateDirect(size);
+		}
+		ByteBuffer b=null;
+		if((MIN_SIZE<<c)<=LOCAL_MAX_SIZE){
+			Local l=local.get();
+			if(l.direct_count[c]>0){
+				local_hits.increment();
+				b=l.direct[c][--l.direct_count[c]];
+				l.direct[c][l.direct_count[c]]=null;
+			}
+		}
+		if(b==null&&(b=direct.poll(c))!=null)global_hits.increment();
+		if(b==null){
+			misses.increment();
+			return ByteBuffer.allocateDirect(MIN_SIZE<<c);
+		}
+		((Buffer)b).clear();
+		return b;
+	}
+
+	/**
+	 * 归还直接缓冲区
+	 * （注：不是由池分配的缓冲区会被丢弃）
+	 * @param b 直接缓冲区（可以为null）
+	 */
+	public void releaseDirect(ByteBuffer b){
+		if(b==null)return;
+		int c=b.isDirect()&&!b.isReadOnly()?exactClass(b.capacity()):-1;
+		if(c<0){
+			discards.increment();
+			return;
+		}
+		if(b.capacity()<=LOCAL_MAX_SIZE){
+			Local l=local.get();
+			if(l.direct_count[c]<local_capacity){
+				l.direct[c][l.direct_count[c]++]=b;
+				return;
+			}
+		}
+		if(!direct.offer(c,b))discards.increment();
+	}
+
+	/**
+	 * 获取命中线程缓存的次数
+	 * @return 命中次数
+	 */
+	public long localHits(){return local_hits.sum();}
+
+	/**
+	 * 获取命中全局空闲列表的次数
+	 * @return 命中次数
+	 */
+	public long globalHits(){return global_hits.sum();}
+
+	/**
+	 * 获取命中的总次数
+	 * @return 命中次数
+	 */
+	public long hits(){return localHits()+globalHits();}
+
+	/**
+	 * 获取未命中（新分配）的次数
+	 * @return 未命中次数
+	 */
+	public long misses(){return misses.sum();}
+
+	/**
+	 * 获取归还时因为缓存已满或者大小不符而丢弃的次数
+	 * @return 丢弃次数
+	 */
+	public long discards(){return discards.sum();}
+
+	/**
+	 * 重置统计数据
+	 */
+	public void resetStats(){
+		local_hits.reset();
+		global_hits.reset();
+		misses.reset();
+		discards.reset();
+	}
+
+	@Override
+	public String toString(){
+		return "BufferPool{hits="+hits()+",local_hits="+localHits()+",global_hits="+globalHits()+
+			",misses="+misses()+",discards="+discards()+"}";
+	}
+}
@@ -0,0 +1,399 @@
+package cn.classfun.utils;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 二进制字符串工具
+ * 与{@link StringUtils}相对应，直接处理ASCII或者UTF-8编码的二进制数组以及缓冲区（堆内或者直接缓冲区），
+ * 可以在解码之前检测、切割以及填充数据。
+ * 处理{@link ByteBuffer}时使用剩余的部分（position到limit），不改变缓冲区的位置，
+ * 返回的结果是原数据的视图，不复制内容
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class ByteStringUtils{
+	private ByteStringUtils(){throw new RuntimeException();}
+	private static final int[]MIN_CODE_POINT={0,0,0x80,0x800,0x10000};//每种UTF-8长度的最小值（更小时为过长编码）
+
+	/**
+	 * 检测数组范围
+	 */
+	private static void checkRange(byte[]b,int off,int len){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * 解码UTF-8并检测每个字符是否在valid中
+	 * @return 检测完成的位置（结尾处有不完整的字符时为这个字符的开始位置），无效时为-1
+	 */
+	private static int validUtf8(byte[]b,int off,int end,CharClass valid){
+		for(int i=off;i<end;){
+			int c=b[i];
+			if(c>=0){//ASCII
+				if(!valid.matches((char)c))return -1;
+				i++;
+				continue;
+			}
+			int n,cp;
+			if((c&0xE0)==0xC0){n=2;cp=c&0x1F;}
+			else if((c&0xF0)==0xE0){n=3;cp=c&0x0F;}
+			else if((c&0xF8)==0xF0){n=4;cp=c&0x07;}
+			else return -1;
+			if(i+n>end)return i;
+			for(int j=1;j<n;j++){
+				int d=b[i+j];
+				if((d&0xC0)!=0x80)return -1;
+				cp=cp<<6|d&0x3F;
+			}
+			if(cp<MIN_CODE_POINT[n]||cp>Character.MAX_CODE_POINT||cp>=0xD800&&cp<=0xDFFF)return -1;
+			if(!valid.matchesCodePoint(cp))return -1;
+			i+=n;
+		}
+		return end;
+	}
+
+	/**
+	 * 检测UTF-8编码的数据之中只能出现valid中的字符
+	 * ASCII字符直接判断，其他字符解码后判断，编码无效时返回false
+	 * <p>示例:</p>
+	 * <p>  validString("123".getBytes(),0,3,CharClass.DEC)=true</p>
+	 * <p>  validString("1 23".getBytes(),0,4,CharClass.DEC)=false</p>
+	 * （注：长度为0时返回true）
+	 * @see StringUtils#validString(CharSequence,CharClass)
+	 * @param b 需要检测的数据
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param valid 预编译的有效字符集合
+	 * @return 是否有效
+	 */
+	public static boolean validString(byte[]b,int off,int len,CharClass valid){
+		checkRange(b,off,len);
+		return validUtf8(b,off,off+len,valid)==off+len;
+	}
+
+	/**
+	 * 检测UTF-8编码的数据之中只能出现valid中的字符
+	 * 直接缓冲区按块复制到数组中检测，块的结尾处不完整的字符留到下一块
+	 * @see #validString(byte[],int,int,CharClass)
+	 * @param b 需要检测的数据（剩余的部分）
+	 * @param valid 预编译的有效字符集合
+	 * @return 是否有效
+	 */
+	public static boolean validString(ByteBuffer b,CharClass valid){
+		if(b.hasArray())return validString(b.array(),b.arrayOffset()+b.position(),b.remaining(),valid);
+		ByteBuffer src=b.duplicate();//不改变原缓冲区的位置
+		byte[]buf=new byte[Math.min(src.remaining(),1024)];
+		int carry=0;
+		while(src.hasRemaining()){
+			int n=Math.min(buf.length-carry,src.remaining());
+			src.get(buf,carry,n);
+			int e=carry+n,r=validUtf8(buf,0,e,valid);
+			if(r<0)return false;
+			carry=e-r;
+			System.arraycopy(buf,r,buf,0,carry);
+		}
+		return carry==0;
+	}
+
+	/**
+	 * 检测数据之中只能出现{@link StringUtils#valid}中指定的字符
+	 * @see #validString(byte[],int,int,CharClass)
+	 * @param b 需要检测的数据
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 是否有效
+	 */
+	public static boolean validString(byte[]b,int off,int len){
+		return validString(b,off,len,CharClass.VALID);
+	}
+
+	/**
+	 * 检测数据之中只能出现{@link StringUtils#valid}中指定的字符
+	 * @see #validString(ByteBuffer,CharClass)
+	 * @param b 需要检测的数据（剩余的部分）
+	 * @return 是否有效
+	 */
+	public static boolean validString(ByteBuffer b){
+		return validString(b,CharClass.VALID);
+	}
+
+	/**
+	 * 判断每个字节是否为十进制的有效值(是否在0-9之间)
+	 * 实际调用{@link StringUtils#isStringDec(byte[],int,int)}
+	 * @param b 输入二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每个字节是否在0-9之间（长度为0时返回false）
+	 */
+	public static boolean isStringDec(byte[]b,int off,int len){
+		return StringUtils.isStringDec(b,off,len);
+	}
+
+	/**
+	 * 判断每个字节是否为二进制的有效值(是否在0-1之间)
+	 * 实际调用{@link StringUtils#isStringBin(byte[],int,int)}
+	 * @param b 输入二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每个字节是否在0-1之间（长度为0时返回false）
+	 */
+	public static boolean isStringBin(byte[]b,int off,int len){
+		return StringUtils.isStringBin(b,off,len);
+	}
+
+	/**
+	 * 判断每个字节是否为十六进制的有效值(是否在0-9,a-f,A-F之间)
+	 * 实际调用{@link StringUtils#isStringHex(byte[],int,int)}
+	 * @param b 输入二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每个字节是否在0-9,a-f,A-F之间（长度为0时返回false）
+	 */
+	public static boolean isStringHex(byte[]b,int off,int len){
+		return StringUtils.isStringHex(b,off,len);
+	}
+
+	/**
+	 * 判断缓冲区剩余的每个字节是否为十进制的有效值(是否在0-9之间)
+	 * 直接缓冲区每次读取8个字节检测
+	 * @param b 输入缓冲区（剩余的部分）
+	 * @return 每个字节是否在0-9之间（没有剩余时返回false）
+	 */
+	public static boolean isStringDec(ByteBuffer b){
+		if(b.hasArray())return isStringDec(b.array(),b.arrayOffset()+b.position(),b.remaining());
+		return b.hasRemaining()&&DigitScanner.INSTANCE.isDec(b,b.position(),b.remaining());
+	}
+
+	/**
+	 * 判断缓冲区剩余的每个字节是否为二进制的有效值(是否在0-1之间)
+	 * @param b 输入缓冲区（剩余的部分）
+	 * @return 每个字节是否在0-1之间（没有剩余时返回false）
+	 */
+	public static boolean isStringBin(ByteBuffer b){
+		if(b.hasArray())return isStringBin(b.array(),b.arrayOffset()+b.position(),b.remaining());
+		return b.hasRemaining()&&DigitScanner.INSTANCE.isBin(b,b.position(),b.remaining());
+	}
+
+	/**
+	 * 判断缓冲区剩余的每个字节是否为十六进制的有效值(是否在0-9,a-f,A-F之间)
+	 * @param b 输入缓冲区（剩余的部分）
+	 * @return 每个字节是否在0-9,a-f,A-F之间（没有剩余时返回false）
+	 */
+	public static boolean isStringHex(ByteBuffer b){
+		if(b.hasArray())return isStringHex(b.array(),b.arrayOffset()+b.position(),b.remaining());
+		return b.hasRemaining()&&DigitScanner.INSTANCE.isHex(b,b.position(),b.remaining());
+	}
+
+	/**
+	 * 按长度切割缓冲区，返回不复制内容的视图
+	 * （注：按字节切割，UTF-8的多字节字符可能被分开）
+	 * <p>示例:</p>
+	 * <p>  spiltLength(ByteBuffer.wrap("1234567890".getBytes()),4)={"1234","5678","90"}</p>
+	 * @see StringUtils#spiltLength(String,int)
+	 * @param src 原数据（剩余的部分）
+	 * @param length 每一段的长度
+	 * @return 切割后的数组
+	 */
+	public static ByteBuffer[] spiltLength(ByteBuffer src,int length){
+		if(length<=0)throw new IllegalArgumentException("length must be positive");
+		ByteBuffer dup=src.duplicate();
+		int start=src.position(),len=src.remaining();
+		ByteBuffer[]arr=new ByteBuffer[(int)(((long)len+length-1)/length)];
+		for(int i=0;i<len;i+=length){
+			int n=Math.min(len-i,length);
+			((Buffer)dup).limit(start+i+n).position(start+i);
+			arr[i/length]=dup.slice();
+		}
+		return arr;
+	}
+
+	/**
+	 * 按长度切割二进制数组，返回不复制内容的视图
+	 * @see #spiltLength(ByteBuffer,int)
+	 * @param b 原数据
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param length 每一段的长度
+	 * @return 切割后的数组
+	 */
+	public static ByteBuffer[] spiltLength(byte[]b,int off,int len,int length){
+		checkRange(b,off,len);
+		return spiltLength(ByteBuffer.wrap(b,off,len),length);
+	}
+
+	/**
+	 * 在缓冲区中查找另一段数据
+	 * @param b 缓冲区
+	 * @param target 需要查找的数据
+	 * @param from 开始位置（绝对位置）
+	 * @param end 结束位置（绝对位置，不包含）
+	 * @return 找到的位置（找不到时为-1）
+	 */
+	static int indexOf(ByteBuffer b,byte[]target,int from,int end){
+		int tl=target.length;
+		if(tl==0)return from;
+		byte f=target[0];
+		outer:for(int i=from,e=end-tl;i<=e;i++){
+			if(b.get(i)!=f)continue;
+			for(int j=1;j<tl;j++)if(b.get(i+j)!=target[j])continue outer;
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 获取两段标记之间的数据，返回不复制内容的视图
+	 * 在src中获取从start开始以end结束的数据（end从start之后开始查找），
+	 * 如果tag为true，则将start和end包含在返回结果中
+	 * @see StringUtils#getBetween(String,String,String,boolean)
+	 * @param src 原数据（剩余的部分）
+	 * @param start 截取的开始
+	 * @param end 截取的结束
+	 * @param tag 返回值是否包含start和end
+	 * @return 两段标记之间的数据（找不到时为null）
+	 */
+	public static ByteBuffer getBetween(ByteBuffer src,byte[]start,byte[]end,boolean tag){
+		requireNonNull(start);
+		requireNonNull(end);
+		int s=indexOf(src,start,src.position(),src.limit());
+		if(s<0)return null;
+		int e=indexOf(src,end,s+start.length,src.limit());
+		if(e<0)return null;
+		ByteBuffer dup=src.duplicate();
+		if(tag)((Buffer)dup).limit(e+end.length).position(s);
+		else ((Buffer)dup).limit(e).position(s+start.length);
+		return dup.slice();
+	}
+
+	/**
+	 * 获取两段标记之间的数据，返回不复制内容的视图
+	 * @see #getBetween(ByteBuffer,byte[],byte[],boolean)
+	 * @param b 原数据
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param start 截取的开始
+	 * @param end 截取的结束
+	 * @param tag 返回值是否包含start和end
+	 * @return 两段标记之间的数据（找不到时为null）
+	 */
+	public static ByteBuffer getBetween(byte[]b,int off,int len,byte[]start,byte[]end,boolean tag){
+		checkRange(b,off,len);
+		return getBetween(ByteBuffer.wrap(b,off,len),start,end,tag);
+	}
+
+	/**
+	 * 如果输入数据长度没有达到要求，则在左侧插入字节
+	 * （注：与{@link StringUtils#padLeft(String,char,int)}不同，pad为0或者src为空时同样填充，
+	 * 二进制数据通常使用0x00填充）
+	 * @see #padLeft(byte[],int,int,byte,int)
+	 * @param src 输入数据
+	 * @param pad 添加字节
+	 * @param len 要求的长度
+	 * @return 处理后的数据（src为null或者不需要处理时为src）
+	 */
+	public static byte[] padLeft(byte[]src,byte pad,int len){
+		if(src==null||src.length>=len)return src;
+		return padLeft(src,0,src.length,pad,len);
+	}
+
+	/**
+	 * 如果输入数据的范围长度没有达到要求，则在左侧插入字节
+	 * （注：pad为0或者范围为空时同样填充，总是返回新的数组）
+	 * <p>示例:</p>
+	 * <p>  padLeft({1,2,3,4},1,2,(byte)0,4)={0,0,2,3}</p>
+	 * @param b 输入数据
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param pad 添加字节
+	 * @param length 要求的长度
+	 * @return 处理后的数据（长度为len和length中较大的一个）
+	 */
+	public static byte[] padLeft(byte[]b,int off,int len,byte pad,int length){
+		checkRange(b,off,len);
+		int n=Math.max(len,length);
+		byte[]r=new byte[n];
+		Arrays.fill(r,0,n-len,pad);
+		System.arraycopy(b,off,r,n-len,len);
+		return r;
+	}
+
+	/**
+	 * 如果输入数据长度没有达到要求，则在右侧追加字节
+	 * （注：与{@link StringUtils#padRight(String,char,int)}不同，pad为0或者src为空时同样填充）
+	 * @see #padRight(byte[],int,int,byte,int)
+	 * @param src 输入数据
+	 * @param pad 添加字节
+	 * @param len 要求的长度
+	 * @return 处理后的数据（src为null或者不需要处理时为src）
+	 */
+	public static byte[] padRight(byte[]src,byte pad,int len){
+		if(src==null||src.length>=len)return src;
+		return padRight(src,0,src.length,pad,len);
+	}
+
+	/**
+	 * 如果输入数据的范围长度没有达到要求，则在右侧追加字节
+	 * （注：pad为0或者范围为空时同样填充，总是返回新的数组）
+	 * @param b 输入数据
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param pad 添加字节
+	 * @param length 要求的长度
+	 * @return 处理后的数据（长度为len和length中较大的一个）
+	 */
+	public static byte[] padRight(byte[]b,int off,int len,byte pad,int length){
+		checkRange(b,off,len);
+		byte[]r=Arrays.copyOfRange(b,off,off+Math.max(len,length));
+		Arrays.fill(r,len,r.length,pad);
+		return r;
+	}
+
+	/**
+	 * 向缓冲区写入重复的字节
+	 * @param out 输出目标
+	 * @param pad 字节
+	 * @param n 次数（小于等于0时不写入）
+	 */
+	private static void repeat(ByteBuffer out,byte pad,int n){
+		if(n<=0)return;
+		if(out.remaining()<n)throw new BufferOverflowException();
+		if(out.hasArray()){
+			int p=out.arrayOffset()+out.position();
+			Arrays.fill(out.array(),p,p+n,pad);
+			((Buffer)out).position(out.position()+n);
+		}else for(int i=0;i<n;i++)out.put(pad);
+	}
+
+	/**
+	 * 将src剩余的部分写入out中，长度没有达到要求时先在左侧写入字节
+	 * （注：不改变src的位置，out的空间不足时抛出{@link BufferOverflowException}，
+	 * 与byte[]的版本相同，pad为0或者src没有剩余时同样填充）
+	 * @param out 输出目标
+	 * @param src 输入数据（剩余的部分）
+	 * @param pad 添加字节
+	 * @param len 要求的长度
+	 * @return out
+	 */
+	public static ByteBuffer padLeft(ByteBuffer out,ByteBuffer src,byte pad,int len){
+		repeat(out,pad,len-src.remaining());
+		return out.put(src.duplicate());
+	}
+
+	/**
+	 * 将src剩余的部分写入out中，长度没有达到要求时再在右侧写入字节
+	 * （注：不改变src的位置，out的空间不足时抛出{@link BufferOverflowException}，
+	 * 与byte[]的版本相同，pad为0或者src没有剩余时同样填充）
+	 * @param out 输出目标
+	 * @param src 输入数据（剩余的部分）
+	 * @param pad 添加字节
+	 * @param len 要求的长度
+	 * @return out
+	 */
+	public static ByteBuffer padRight(ByteBuffer out,ByteBuffer src,byte pad,int len){
+		int n=len-src.remaining();
+		out.put(src.duplicate());
+		repeat(out,pad,n);
+		return out;
+	}
+}
@@ -0,0 +1,134 @@
+package cn.classfun.utils;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 预编译的字符集合
+ * 由有效字符组成的字符串编译而成，基本多文种平面（BMP）的字符使用位图判断，
+ * 补充平面的字符使用有序数组二分查找，判断时不会分配内存
+ * <p>示例:</p>
+ * <p>  CharClass.of("0123456789").matchesAll("123")=true</p>
+ * <p>  CharClass.HEX.matches('g')=false</p>
+ * （注：编译后不可修改，可以在多个线程中使用）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class CharClass{
+	public static final CharClass DEC=of("0123456789");//十进制字符(0-9)
+	public static final CharClass BIN=of("01");//二进制字符(0-1)
+	public static final CharClass HEX=of("0123456789abcdefABCDEF");//十六进制字符(0-9,a-f,A-F)
+	public static final CharClass VALID=of(StringUtils.valid);//a-z,A-Z,0-9,-,_
+	private final long[]bits;//BMP字符的位图（只分配到最大的字符）
+	private final int[]supplementary;//补充平面的字符（有序）
+
+	private CharClass(long[]bits,int[]supplementary){
+		this.bits=bits;
+		this.supplementary=supplementary;
+	}
+
+	/**
+	 * 由有效字符编译字符集合
+	 * （注：成对的代理字符视为一个补充平面的字符，单独的代理字符视为BMP字符）
+	 * @param valid 有效的字符
+	 * @return 字符集合
+	 */
+	public static CharClass of(CharSequence valid){
+		requireNonNull(valid);
+		int max=-1,sup=0;
+		for(int i=0;i<valid.length();){
+			int c=Character.codePointAt(valid,i);
+			if(c>0xFFFF)sup++;
+			else max=Math.max(max,c);
+			i+=Character.charCount(c);
+		}
+		long[]bits=new long[(max>>6)+1];
+		int[]supplementary=new int[sup];
+		sup=0;
+		for(int i=0;i<valid.length();){
+			int c=Character.codePointAt(valid,i);
+			if(c>0xFFFF)supplementary[sup++]=c;
+			else bits[c>>6]|=1L<<c;
+			i+=Character.charCount(c);
+		}
+		Arrays.sort(supplementary);
+		return new CharClass(bits,supplementary);
+	}
+
+	/**
+	 * 判断字符是否在集合中
+	 * @param c 字符
+	 * @return 是否在集合中
+	 */
+	public boolean matches(char c){
+		int i=c>>6;
+		return i<bits.length&&(bits[i]&1L<<c)!=0;
+	}
+
+	/**
+	 * 判断字符是否在集合中（支持补充平面的字符）
+	 * @param cp 字符的代码点
+	 * @return 是否在集合中
+	 */
+	public boolean matchesCodePoint(int cp){
+		if(cp<0)return false;
+		if(cp<=0xFFFF)return matches((char)cp);
+		return supplementary.length>0&&Arrays.binarySearch(supplementary,cp)>=0;
+	}
+
+	/**
+	 * 查找第一个不在集合中的字符
+	 * @param s 需要检测的字符串
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @return 第一个不在集合中的字符的位置（全部在集合中时为-1）
+	 */
+	public int indexOfMismatch(CharSequence s,int start,int end){
+		if(supplementary.length==0){//没有补充平面的字符，逐个判断
+			for(int i=start;i<end;i++)if(!matches(s.charAt(i)))return i;
+			return -1;
+		}
+		for(int i=start;i<end;){
+			char c=s.charAt(i);
+			if(Character.isHighSurrogate(c)&&i+1<end&&Character.isLowSurrogate(s.charAt(i+1))){
+				if(!matchesCodePoint(Character.toCodePoint(c,s.charAt(i+1))))return i;
+				i+=2;
+			}else{
+				if(!matches(c))return i;
+				i++;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 查找第一个不在集合中的字符
+	 * @param s 需要检测的字符串
+	 * @return 第一个不在集合中的字符的位置（全部在集合中时为-1）
+	 */
+	public int indexOfMismatch(CharSequence s){
+		return indexOfMismatch(s,0,s.length());
+	}
+
+	/**
+	 * 判断字符串的每个字符是否都在集合中
+	 * （注：空字符串返回true）
+	 * @param s 需要检测的字符串
+	 * @return 是否都在集合中
+	 */
+	public boolean matchesAll(CharSequence s){
+		return indexOfMismatch(s,0,s.length())<0;
+	}
+
+	/**
+	 * 判断字符串的每个字符是否都在集合中
+	 * （注：空字符串返回true）
+	 * @param s 需要检测的字符数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 是否都在集合中
+	 */
+	public boolean matchesAll(char[]s,int off,int len){
+		if(supplementary.length>0)return indexOfMismatch(CharBuffer.wrap(s,off,len))<0;
+		for(int i=off,e=off+len;i<e;i++)if(!matches(s[i]))return false;
+		return true;
+	}
+}
@@ -0,0 +1,21 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+/**
+ * 文件分块处理器
+ * @see FileUtils#processChunks(java.io.File,long,byte[],ChunkProcessor,java.util.function.BinaryOperator,java.util.concurrent.Executor)
+ * @param <R> 每一块的处理结果
+ */
+@FunctionalInterface
+public interface ChunkProcessor<R>{
+
+	/**
+	 * 处理文件中的一块
+	 * （注：可能在多个线程中同时调用）
+	 * @param chunk 该块的只读缓冲区（内存映射，不在堆内存中）
+	 * @param offset 该块在文件中的位置
+	 * @return 处理结果
+	 * @throws IOException 处理失败
+	 */
+	R process(ByteBuffer chunk,long offset)throws IOException;
+}
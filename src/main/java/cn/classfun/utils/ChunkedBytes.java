@@ -0,0 +1,206 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+/**
+ * 分块的二进制缓冲区
+ * 读取数据时按块增长，不会像{@link java.io.ByteArrayOutputStream}一样反复复制已读取的数据，
+ * 最终转换为数组时最多复制一次（只有一块并且刚好填满时不复制）
+ * 指定缓冲区池时，每一块都从池中获取，使用完成后通过{@link #recycle()}归还
+ * （注：非线程安全）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class ChunkedBytes{
+	public static final int DEFAULT_CHUNK_SIZE=8192;//默认第一块的大小
+	public static final int MAX_CHUNK_SIZE=1<<20;//每一块的最大大小
+	public static final long MAX_ARRAY_SIZE=Integer.MAX_VALUE-8;//数组的最大大小
+	private final long max;
+	private final BufferPool pool;
+	private byte[][]chunks=new byte[4][];
+	private int[]limits=new int[4];//每一块可以使用的大小（缓冲区池返回的数组可能更大）
+	private int count=0;//已经使用的块的数量
+	private int used=0;//最后一块已经使用的大小
+	private long size=0;
+	private int hint;
+
+	/**
+	 * 创建分块缓冲区
+	 * @param hint 预期的大小（小于等于0时使用{@link #DEFAULT_CHUNK_SIZE}）
+	 * @param max 允许的最大大小（超过时抛出异常）
+	 * @param pool 缓冲区池（为null时直接分配）
+	 */
+	public ChunkedBytes(int hint,long max,BufferPool pool){
+		if(max<0)throw new IllegalArgumentException("max size must not be negative");
+		this.hint=hint;
+		this.max=max;
+		this.pool=pool;
+	}
+
+	/**
+	 * 创建分块缓冲区
+	 * @param hint 预期的大小（小于等于0时使用{@link #DEFAULT_CHUNK_SIZE}）
+	 * @param max 允许的最大大小（超过时抛出异常）
+	 */
+	public ChunkedBytes(int hint,long max){
+		this(hint,max,null);
+	}
+
+	/**
+	 * 创建分块缓冲区
+	 * （注：最大大小为{@link #MAX_ARRAY_SIZE}）
+	 * @param hint 预期的大小（小于等于0时使用{@link #DEFAULT_CHUNK_SIZE}）
+	 */
+	public ChunkedBytes(int hint){
+		this(hint,MAX_ARRAY_SIZE);
+	}
+
+	/**
+	 * 创建分块缓冲区
+	 * （注：使用默认第一块的大小{@link #DEFAULT_CHUNK_SIZE}，最大大小为{@link #MAX_ARRAY_SIZE}）
+	 */
+	public ChunkedBytes(){
+		this(0);
+	}
+
+	/**
+	 * 获取已经读取的大小
+	 * @return 已经读取的大小
+	 */
+	public long size(){return size;}
+
+	/**
+	 * 分配下一块
+	 * @param want 还需要的大小（小于等于0时表示未知）
+	 * @throws IOException 超过最大大小
+	 */
+	private void grow(long want)throws IOException{
+		if(size>=max)throw new IOException("stream exceeds maximum size "+max);
+		long n;
+		if(count==0)n=hint>0?hint:DEFAULT_CHUNK_SIZE;
+		else n=Math.min(Math.max(size,DEFAULT_CHUNK_SIZE),MAX_CHUNK_SIZE);//按已读取的大小倍增
+		if(want>0)n=Math.min(n,want);
+		n=Math.min(n,max-size);
+		if(count==chunks.length){
+			chunks=Arrays.copyOf(chunks,count*2);
+			limits=Arrays.copyOf(limits,count*2);
+		}
+		limits[count]=(int)n;//只使用计算出的大小，保证不超过最大大小
+		chunks[count++]=pool==null?new byte[(int)n]:pool.acquire((int)n);
+		used=0;
+	}
+
+	/**
+	 * 从输入流读取数据，直到结尾或者达到limit
+	 * （注：不会关闭输入流）
+	 * @param in 输入流（读取来源）
+	 * @param limit 最多读取的大小（小于0时表示读取到结尾）
+	 * @return 读取的大小
+	 * @throws IOException 读取失败或者超过最大大小
+	 */
+	public long read(InputStream in,long limit)throws IOException{
+		long start=size;
+		while(limit<0||size-start<limit){
+			long want=limit<0?0:limit-(size-start);
+			if(count==0||used==limits[count-1]){
+				if(count>0&&want<=0){//刚好填满，先确认是否已经到达结尾，避免多余的分配
+					int c=in.read();
+					if(c<0)break;
+					grow(want);
+					chunks[count-1][used++]=(byte)c;
+					size++;
+					continue;
+				}
+				grow(want);
+			}
+			byte[]b=chunks[count-1];
+			int n=(int)Math.min(limits[count-1]-used,want>0?want:Integer.MAX_VALUE);
+			int l=in.read(b,used,n);
+			if(l<0)break;//小于0时说明到达了结尾
+			used+=l;
+			size+=l;
+		}
+		return size-start;
+	}
+
+	/**
+	 * 从输入流读取数据，直到结尾
+	 * 实际调用{@link #read(InputStream,long)}
+	 * @param in 输入流（读取来源）
+	 * @return 读取的大小
+	 * @throws IOException 读取失败或者超过最大大小
+	 */
+	public long read(InputStream in)throws IOException{
+		return read(in,-1);
+	}
+
+	/**
+	 * 转换为二进制数组
+	 * （注：未使用缓冲区池，并且只有一块并且刚好填满时直接返回该块，不复制）
+	 * @return 二进制数组
+	 * @throws IOException 超过数组的最大大小
+	 */
+	public byte[] toBytes()throws IOException{
+		if(count==0)return new byte[0];
+		if(pool==null&&count==1&&used==chunks[0].length)return chunks[0];
+		if(size>MAX_ARRAY_SIZE)throw new IOException("data too large for an array: "+size);
+		byte[]r=new byte[(int)size];
+		int pos=0;
+		for(int i=0;i<count;i++){
+			int l=i==count-1?used:limits[i];
+			System.arraycopy(chunks[i],0,r,pos,l);
+			pos+=l;
+		}
+		return r;
+	}
+
+	/**
+	 * 转换为缓冲区
+	 * （注：未使用缓冲区池，并且只有一块时直接包装该块，不复制）
+	 * @return 缓冲区
+	 * @throws IOException 超过数组的最大大小
+	 */
+	public ByteBuffer toBuffer()throws IOException{
+		if(pool==null&&count==1)return ByteBuffer.wrap(chunks[0],0,used);
+		return ByteBuffer.wrap(toBytes());
+	}
+
+	/**
+	 * 将所有数据写入到输出流中
+	 * （注：不会关闭输出流）
+	 * @param out 输出流
+	 * @throws IOException 写入失败
+	 */
+	public void writeTo(OutputStream out)throws IOException{
+		for(int i=0;i<count;i++)out.write(chunks[i],0,i==count-1?used:limits[i]);
+	}
+
+	/**
+	 * 使用指定的字符集转换为字符串
+	 * （注：只有一块时直接解码该块，不复制）
+	 * @param charset 使用的字符集
+	 * @return 字符串
+	 * @throws IOException 超过数组的最大大小
+	 */
+	public String toString(Charset charset)throws IOException{
+		if(count==0)return "";
+		if(count==1)return new String(chunks[0],0,used,charset);
+		return new String(toBytes(),charset);
+	}
+
+	/**
+	 * 将所有块归还到缓冲区池并清空
+	 * （注：未使用缓冲区池时只清空，归还后不能再使用之前获取的数组或者缓冲区）
+	 */
+	public void recycle(){
+		for(int i=0;i<count;i++){
+			if(pool!=null)pool.release(chunks[i]);
+			chunks[i]=null;
+		}
+		count=0;
+		used=0;
+		size=0;
+	}
+}
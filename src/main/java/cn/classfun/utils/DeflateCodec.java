@@ -0,0 +1,315 @@
+package cn.classfun.utils;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 基于{@link Deflater}以及{@link Inflater}的编码（gzip、zlib以及raw deflate）
+ * gzip的头部以及尾部（CRC32以及长度）直接写入，不使用{@link java.util.zip.GZIPOutputStream}。
+ * 每个线程按压缩等级缓存{@link Deflater}以及{@link Inflater}，使用完成后重置而不是释放
+ * @see StreamCodec#gzip(int)
+ * @see StreamCodec#deflate(int,boolean)
+ */
+final class DeflateCodec implements StreamCodec{
+	private static final int LEVELS=11;//DEFAULT_COMPRESSION以及0-9
+	private static final int FHCRC=2,FEXTRA=4,FNAME=8,FCOMMENT=16;//gzip头部的标志
+	private static final ThreadLocal<Deflater[]>DEFLATERS=ThreadLocal.withInitial(()->new Deflater[LEVELS*2]);
+	private static final ThreadLocal<Inflater[]>INFLATERS=ThreadLocal.withInitial(()->new Inflater[2]);
+	private final Format format;
+	private final int level;
+
+	/**
+	 * 数据格式
+	 */
+	enum Format{
+		GZIP,//RFC 1952
+		ZLIB,//RFC 1950
+		RAW,//RFC 1951
+	}
+
+	DeflateCodec(Format format,int level){
+		this.format=requireNonNull(format);
+		this.level=checkLevel(level);
+	}
+
+	static int checkLevel(int level){
+		if((level<0||level>9)&&level!=Deflater.DEFAULT_COMPRESSION)
+			throw new IllegalArgumentException("invalid compression level: "+level);
+		return level;
+	}
+
+	/**
+	 * 从当前线程的缓存中取出{@link Deflater}（缓存中没有时创建）
+	 */
+	private static Deflater borrowDeflater(int level,boolean nowrap){
+		Deflater[]a=DEFLATERS.get();
+		int i=(nowrap?LEVELS:0)+level+1;
+		Deflater d=a[i];
+		if(d==null)return new Deflater(level,nowrap);
+		a[i]=null;//嵌套使用时不会共享同一个实例
+		return d;
+	}
+
+	private static void returnDeflater(Deflater d,int level,boolean nowrap){
+		d.reset();
+		Deflater[]a=DEFLATERS.get();
+		int i=(nowrap?LEVELS:0)+level+1;
+		if(a[i]==null)a[i]=d;
+		else d.end();
+	}
+
+	private static Inflater borrowInflater(boolean nowrap){
+		Inflater[]a=INFLATERS.get();
+		int i=nowrap?1:0;
+		Inflater f=a[i];
+		if(f==null)return new Inflater(nowrap);
+		a[i]=null;
+		return f;
+	}
+
+	private static void returnInflater(Inflater f,boolean nowrap){
+		f.reset();
+		Inflater[]a=INFLATERS.get();
+		int i=nowrap?1:0;
+		if(a[i]==null)a[i]=f;
+		else f.end();
+	}
+
+	private static byte[] acquire(BufferPool pool,int size){
+		if(size<=0)throw new IllegalArgumentException("buffer size must be positive");
+		return pool==null?new byte[size]:pool.acquire(size);
+	}
+
+	private static void release(BufferPool pool,byte[]b){
+		if(pool!=null)pool.release(b);
+	}
+
+	/**
+	 * 生成gzip头部（没有文件名以及修改时间）
+	 */
+	private static byte[] header(int level){
+		int xfl=level==9?2:level==1?4:0;//最大压缩或者最快压缩
+		return new byte[]{0x1f,(byte)0x8b,8,0,0,0,0,0,(byte)xfl,(byte)0xff};
+	}
+
+	/**
+	 * 生成gzip尾部（CRC32以及原始长度，小端序）
+	 */
+	private static byte[] trailer(long crc,long size){
+		byte[]b=new byte[8];
+		for(int i=0;i<4;i++){
+			b[i]=(byte)(crc>>>(i*8));
+			b[i+4]=(byte)(size>>>(i*8));
+		}
+		return b;
+	}
+
+	/**
+	 * 取出已经压缩的数据并写入输出流
+	 */
+	private static int drain(Deflater def,byte[]ob,OutputStream out)throws IOException{
+		int n=def.deflate(ob,0,ob.length,Deflater.NO_FLUSH);
+		if(n>0)out.write(ob,0,n);
+		return n;
+	}
+
+	@Override
+	public long encode(InputStream in,OutputStream out,int buffer_size,BufferPool pool)throws IOException{
+		boolean gzip=format==Format.GZIP;
+		boolean nowrap=format!=Format.ZLIB;
+		byte[]ib=acquire(pool,buffer_size),ob=acquire(pool,buffer_size);
+		Deflater def=borrowDeflater(level,nowrap);
+		try{
+			CRC32 crc=gzip?new CRC32():null;
+			long total=0,size=0;
+			if(gzip){
+				byte[]h=header(level);
+				out.write(h);
+				total+=h.length;
+			}
+			int n;
+			while((n=in.read(ib,0,ib.length))>=0){//使用缓冲区池返回的完整大小
+				if(n==0)continue;
+				if(crc!=null)crc.update(ib,0,n);
+				size+=n;
+				def.setInput(ib,0,n);
+				while(!def.needsInput())total+=drain(def,ob,out);
+			}
+			def.finish();
+			while(!def.finished())total+=drain(def,ob,out);
+			if(crc!=null){
+				out.write(trailer(crc.getValue(),size));
+				total+=8;
+			}
+			out.flush();
+			return total;
+		}finally{
+			returnDeflater(def,level,nowrap);
+			release(pool,ib);
+			release(pool,ob);
+		}
+	}
+
+	/**
+	 * 将一块数据压缩为一个完整的gzip成员
+	 * @param b 数据
+	 * @param len 数据的长度
+	 * @param level 压缩等级
+	 * @param buffer_size 压缩时使用的缓冲区大小
+	 * @param pool 缓冲区池（为null时直接分配）
+	 * @return 压缩后的数据
+	 */
+	static ByteArrayOutputStream gzipMember(byte[]b,int len,int level,int buffer_size,BufferPool pool)throws IOException{
+		ByteArrayOutputStream out=new ByteArrayOutputStream((len>>1)+64);
+		byte[]ob=acquire(pool,buffer_size);
+		Deflater def=borrowDeflater(level,true);
+		try{
+			CRC32 crc=new CRC32();
+			crc.update(b,0,len);
+			out.write(header(level));
+			def.setInput(b,0,len);
+			def.finish();
+			while(!def.finished())drain(def,ob,out);
+			out.write(trailer(crc.getValue(),len));
+			return out;
+		}finally{
+			returnDeflater(def,level,true);
+			release(pool,ob);
+		}
+	}
+
+	/**
+	 * 带有缓冲区的输入，解码完成后未使用的部分可以继续读取
+	 */
+	private static final class Source{
+		final InputStream in;
+		final byte[]buf;
+		int pos=0,lim=0;
+
+		Source(InputStream in,byte[]buf){
+			this.in=in;
+			this.buf=buf;
+		}
+
+		boolean fill()throws IOException{
+			if(pos<lim)return true;
+			int n;
+			do n=in.read(buf,0,buf.length);while(n==0);
+			if(n<0)return false;
+			pos=0;
+			lim=n;
+			return true;
+		}
+
+		int read()throws IOException{
+			return fill()?buf[pos++]&0xff:-1;
+		}
+
+		int readByte()throws IOException{
+			int b=read();
+			if(b<0)throw new EOFException("unexpected end of compressed stream");
+			return b;
+		}
+
+		long readIntLE()throws IOException{
+			long v=0;
+			for(int i=0;i<4;i++)v|=(long)readByte()<<(i*8);
+			return v;
+		}
+
+		void skip(int n)throws IOException{
+			while(n-->0)readByte();
+		}
+
+		void skipString()throws IOException{
+			while(readByte()!=0);
+		}
+	}
+
+	/**
+	 * 解压直到deflate数据结束，多读取的部分留在src中
+	 */
+	private static long inflate(Inflater inf,Source src,byte[]ob,OutputStream out,CRC32 crc)throws IOException{
+		long total=0;
+		try{
+			for(;;){
+				if(inf.needsInput()){
+					if(!src.fill())throw new EOFException("unexpected end of compressed stream");
+					inf.setInput(src.buf,src.pos,src.lim-src.pos);
+					src.pos=src.lim;
+				}
+				int n=inf.inflate(ob,0,ob.length);
+				if(n>0){
+					if(crc!=null)crc.update(ob,0,n);
+					out.write(ob,0,n);
+					total+=n;
+				}
+				if(inf.finished()){
+					src.pos=src.lim-inf.getRemaining();//归还未使用的输入
+					return total;
+				}
+				if(n==0&&inf.needsDictionary())throw new ZipException("preset dictionary is not supported");
+			}
+		}catch(DataFormatException e){
+			throw new ZipException(e.getMessage()==null?"invalid compressed data":e.getMessage());
+		}
+	}
+
+	/**
+	 * 读取gzip头部（已经读取了第一个字节）
+	 */
+	private static void readHeader(Source src,int first)throws IOException{
+		if(first!=0x1f||src.readByte()!=0x8b)throw new ZipException("not in gzip format");
+		if(src.readByte()!=8)throw new ZipException("unsupported compression method");
+		int flags=src.readByte();
+		src.skip(6);//修改时间、额外标志以及操作系统
+		if((flags&FEXTRA)!=0)src.skip(src.readByte()|src.readByte()<<8);
+		if((flags&FNAME)!=0)src.skipString();
+		if((flags&FCOMMENT)!=0)src.skipString();
+		if((flags&FHCRC)!=0)src.skip(2);
+	}
+
+	@Override
+	public long decode(InputStream in,OutputStream out,int buffer_size,BufferPool pool)throws IOException{
+		boolean nowrap=format!=Format.ZLIB;
+		byte[]ib=acquire(pool,buffer_size),ob=acquire(pool,buffer_size);
+		Inflater inf=borrowInflater(nowrap);
+		try{
+			Source src=new Source(in,ib);
+			long total=0;
+			if(format!=Format.GZIP){
+				total=inflate(inf,src,ob,out,null);
+			}else{
+				int b=src.read();
+				if(b<0)throw new EOFException("unexpected end of compressed stream");
+				do{//依次解码每一个gzip成员
+					readHeader(src,b);
+					CRC32 crc=new CRC32();
+					long size=inflate(inf,src,ob,out,crc);
+					if(src.readIntLE()!=crc.getValue())throw new ZipException("corrupt gzip trailer: crc mismatch");
+					if(src.readIntLE()!=(size&0xffffffffL))throw new ZipException("corrupt gzip trailer: size mismatch");
+					total+=size;
+					inf.reset();
+				}while((b=src.read())>=0);
+			}
+			out.flush();
+			return total;
+		}finally{
+			returnInflater(inf,nowrap);
+			release(pool,ib);
+			release(pool,ob);
+		}
+	}
+
+	@Override
+	public String toString(){
+		return "DeflateCodec{format="+format+",level="+level+"}";
+	}
+}
@@ -0,0 +1,182 @@
+package cn.classfun.utils;
+import java.nio.ByteBuffer;
+/**
+ * 十进制、二进制以及十六进制字符的批量检测
+ * 二进制数组使用SWAR（寄存器内的SIMD）每次检测8个字节，字符串逐个字符检测但不复制。
+ * 启动时根据系统属性{@value #PROPERTY}选择实现（"scalar"或者"swar"，默认为"swar"）
+ * （注：由于项目以Java 8为目标，不使用Vector API）
+ */
+abstract class DigitScanner{
+	static final String PROPERTY="cn.classfun.utils.digits";
+	static final DigitScanner INSTANCE=select(System.getProperty(PROPERTY,"swar"));
+
+	/**
+	 * 选择实现
+	 * @param name 实现名称
+	 * @return 实现
+	 */
+	static DigitScanner select(String name){
+		return "scalar".equalsIgnoreCase(name)?new Scalar():new Swar();
+	}
+
+	/**
+	 * 获取实现名称
+	 * @return 实现名称
+	 */
+	abstract String name();
+
+	abstract boolean isDec(byte[]b,int off,int len);
+
+	abstract boolean isBin(byte[]b,int off,int len);
+
+	abstract boolean isHex(byte[]b,int off,int len);
+
+	//以下函数使用绝对位置读取，不改变缓冲区的位置
+
+	abstract boolean isDec(ByteBuffer b,int off,int len);
+
+	abstract boolean isBin(ByteBuffer b,int off,int len);
+
+	abstract boolean isHex(ByteBuffer b,int off,int len);
+
+	static boolean isDec(int c){return c>='0'&&c<='9';}
+
+	static boolean isBin(int c){return (c&~1)=='0';}
+
+	static boolean isHex(int c){
+		if(c>='0'&&c<='9')return true;
+		c|=0x20;//转为小写
+		return c>='a'&&c<='f';
+	}
+
+	static boolean isDec(CharSequence s,int start,int end){
+		for(int i=start;i<end;i++)if(!isDec(s.charAt(i)))return false;
+		return true;
+	}
+
+	static boolean isBin(CharSequence s,int start,int end){
+		for(int i=start;i<end;i++)if(!isBin(s.charAt(i)))return false;
+		return true;
+	}
+
+	static boolean isHex(CharSequence s,int start,int end){
+		for(int i=start;i<end;i++)if(!isHex(s.charAt(i)))return false;
+		return true;
+	}
+
+	/**
+	 * 逐个字节检测
+	 */
+	static final class Scalar extends DigitScanner{
+		@Override String name(){return "scalar";}
+
+		@Override boolean isDec(byte[]b,int off,int len){
+			for(int i=off,e=off+len;i<e;i++)if(!isDec(b[i]))return false;
+			return true;
+		}
+
+		@Override boolean isBin(byte[]b,int off,int len){
+			for(int i=off,e=off+len;i<e;i++)if(!isBin(b[i]))return false;
+			return true;
+		}
+
+		@Override boolean isHex(byte[]b,int off,int len){
+			for(int i=off,e=off+len;i<e;i++)if(!isHex(b[i]))return false;
+			return true;
+		}
+
+		@Override boolean isDec(ByteBuffer b,int off,int len){
+			for(int i=off,e=off+len;i<e;i++)if(!isDec(b.get(i)))return false;
+			return true;
+		}
+
+		@Override boolean isBin(ByteBuffer b,int off,int len){
+			for(int i=off,e=off+len;i<e;i++)if(!isBin(b.get(i)))return false;
+			return true;
+		}
+
+		@Override boolean isHex(ByteBuffer b,int off,int len){
+			for(int i=off,e=off+len;i<e;i++)if(!isHex(b.get(i)))return false;
+			return true;
+		}
+	}
+
+	/**
+	 * 每次检测8个字节
+	 * 每个字节视为一个通道，通道之间没有进位，最高位表示该字节是否在范围内
+	 */
+	static final class Swar extends DigitScanner{
+		private static final long L01=0x0101010101010101L,L7F=L01*0x7F,L80=L01*0x80;
+
+		@Override String name(){return "swar";}
+
+		/**
+		 * 读取8个字节（小端序）
+		 */
+		static long load(byte[]b,int i){
+			return (b[i]&0xFFL)|(b[i+1]&0xFFL)<<8|(b[i+2]&0xFFL)<<16|(b[i+3]&0xFFL)<<24|
+				(b[i+4]&0xFFL)<<32|(b[i+5]&0xFFL)<<40|(b[i+6]&0xFFL)<<48|(b[i+7]&0xFFL)<<56;
+		}
+
+		/**
+		 * 每个字节x满足m&lt;x&lt;n时，该字节的最高位为1
+		 * （注：0&lt;=m&lt;=127，0&lt;=n&lt;=128，大于127的字节总是为0）
+		 */
+		static long between(long x,int m,int n){
+			long x7=x&L7F;
+			return (L01*(127+n)-x7)&~x&(x7+L01*(127-m))&L80;
+		}
+
+		static boolean isDec(long x){return between(x,'0'-1,'9'+1)==L80;}
+
+		static boolean isBin(long x){return ((x^L01*'0')&~L01)==0;}
+
+		static boolean isHex(long x){
+			return (between(x,'0'-1,'9'+1)|between(x|L01*0x20,'a'-1,'f'+1))==L80;
+		}
+
+		@Override boolean isDec(byte[]b,int off,int len){
+			int i=off,e=off+len;
+			for(;i<=e-8;i+=8)if(!isDec(load(b,i)))return false;
+			for(;i<e;i++)if(!DigitScanner.isDec(b[i]))return false;
+			return true;
+		}
+
+		@Override boolean isBin(byte[]b,int off,int len){
+			int i=off,e=off+len;
+			for(;i<=e-8;i+=8)if(!isBin(load(b,i)))return false;
+			for(;i<e;i++)if(!DigitScanner.isBin(b[i]))return false;
+			return true;
+		}
+
+		@Override boolean isHex(byte[]b,int off,int len){
+			int i=off,e=off+len;
+			for(;i<=e-8;i+=8)if(!isHex(load(b,i)))return false;
+			for(;i<e;i++)if(!DigitScanner.isHex(b[i]))return false;
+			return true;
+		}
+
+		//每个字节单独检测，与字节序无关，可以直接使用getLong
+
+		@Override boolean isDec(ByteBuffer b,int off,int len){
+			int i=off,e=off+len;
+			for(;i<=e-8;i+=8)if(!isDec(b.getLong(i)))return false;
+			for(;i<e;i++)if(!DigitScanner.isDec(b.get(i)))return false;
+			return true;
+		}
+
+		@Override boolean isBin(ByteBuffer b,int off,int len){
+			int i=off,e=off+len;
+			for(;i<=e-8;i+=8)if(!isBin(b.getLong(i)))return false;
+			for(;i<e;i++)if(!DigitScanner.isBin(b.get(i)))return false;
+			return true;
+		}
+
+		@Override boolean isHex(ByteBuffer b,int off,int len){
+			int i=off,e=off+len;
+			for(;i<=e-8;i+=8)if(!isHex(b.getLong(i)))return false;
+			for(;i<e;i++)if(!DigitScanner.isHex(b.get(i)))return false;
+			return true;
+		}
+	}
+}
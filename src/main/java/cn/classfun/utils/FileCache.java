@@ -0,0 +1,321 @@
+package cn.classfun.utils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 文件内容缓存
+ * 以文件的真实路径为键缓存文件内容，每次获取时比较文件标识、修改时间以及大小，不同时重新读取。
+ * 同时记录获取时使用的路径对应的真实路径，命中时只读取一次文件属性，不解析真实路径，也不加锁；
+ * 文件被删除后仍然可以按原来的路径移除。
+ * 按占用的字节数限制总大小，超过时淘汰最久未访问的文件（按访问时间的近似LRU）。
+ * 同一个文件的内容在多次获取之间共享，不重复读取以及解码
+ * <p>示例:</p>
+ * <p>  FileCache cache=new FileCache(64L&lt;&lt;20);</p>
+ * <p>  String s=FileUtils.file2string(file,StandardCharsets.UTF_8,cache);</p>
+ * （注：仍然需要读取一次文件属性，修改时间精度不足时短时间内的修改可能无法发现；
+ * 超过总大小的文件不缓存；淘汰时遍历所有文件，只在读取文件后进行；可以在多个线程中使用）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class FileCache{
+	private final long capacity;
+	private final ConcurrentHashMap<String,Entry>map=new ConcurrentHashMap<>();//真实路径对应的文件
+	private final ConcurrentHashMap<String,String>aliases=new ConcurrentHashMap<>();//获取时使用的路径对应的真实路径
+	private final AtomicLong used=new AtomicLong();//已经占用的字节数
+	private final LongAdder hits=new LongAdder();
+	private final LongAdder misses=new LongAdder();
+	private final LongAdder evictions=new LongAdder();
+	private final LongAdder invalidations=new LongAdder();
+
+	/**
+	 * 缓存的一个文件
+	 * （注：text、charset、weight、aliases以及removed在同步块中修改）
+	 */
+	private static final class Entry{
+		final String key;
+		final Object file_key;//文件标识（例如设备号以及inode，不支持时为null）
+		final FileTime mtime;
+		final long size;
+		final byte[]data;
+		final ArrayList<String>aliases=new ArrayList<>(1);//指向这个文件的路径
+		volatile long access;//最近一次访问的时间
+		String text;//最近一次解码的字符串
+		Charset charset;
+		long weight;
+		boolean removed;//已经从缓存中移除
+
+		Entry(String key,BasicFileAttributes a,byte[]data){
+			this.key=key;
+			this.file_key=a.fileKey();
+			this.mtime=a.lastModifiedTime();
+			this.size=a.size();
+			this.data=data;
+			this.weight=data.length;
+			this.access=System.nanoTime();
+		}
+
+		boolean valid(BasicFileAttributes a){
+			return size==a.size()&&mtime.equals(a.lastModifiedTime())&&Objects.equals(file_key,a.fileKey());
+		}
+	}
+
+	/**
+	 * 创建文件内容缓存
+	 * @param capacity 总大小（字节，字符串按每个字符2字节计算）
+	 */
+	public FileCache(long capacity){
+		if(capacity<0)throw new IllegalArgumentException("capacity must not be negative");
+		this.capacity=capacity;
+	}
+
+	/**
+	 * 获取文件内容的只读缓冲区
+	 * 返回的缓冲区共享缓存中的数据，每次返回一个新的位置以及界限
+	 * @param file 文件（不能是文件夹）
+	 * @return 只读缓冲区
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public ByteBuffer getBuffer(File file)throws IOException{
+		return ByteBuffer.wrap(load(file).data).asReadOnlyBuffer();
+	}
+
+	/**
+	 * 获取文件内容
+	 * （注：返回的是副本，修改不影响缓存）
+	 * @param file 文件（不能是文件夹）
+	 * @return 二进制数组
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public byte[] getBytes(File file)throws IOException{
+		return load(file).data.clone();
+	}
+
+	/**
+	 * 获取文件内容的字符串（指定字符集）
+	 * 文件未改变并且字符集相同时返回同一个字符串实例
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @return 字符串
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public String getString(File file,Charset charset)throws IOException{
+		requireNonNull(charset);
+		Entry e=load(file);
+		synchronized(e){
+			if(e.text!=null&&e.charset.equals(charset))return e.text;
+		}
+		String s=new String(e.data,charset);
+		long w=e.data.length+2L*s.length();
+		if(w>capacity)return s;//字符串放不下时不缓存
+		synchronized(e){
+			long delta=w-e.weight;
+			e.text=s;
+			e.charset=charset;
+			e.weight=w;
+			if(e.removed)return s;//已经被淘汰或者替换时只更新自身
+			used.addAndGet(delta);
+		}
+		evict();
+		return s;
+	}
+
+	/**
+	 * 移除一个文件的缓存
+	 * @param file 文件
+	 * @return 是否找到并移除
+	 */
+	public boolean invalidate(File file){
+		Path p=requireNonNull(file).toPath();
+		String key;
+		try{
+			key=key(p);
+		}catch(IOException ex){
+			key=aliases.get(file.getPath());//文件已经不存在，按获取时使用的路径查找真实路径
+			if(key==null)key=p.toAbsolutePath().normalize().toString();
+		}
+		Entry e=map.get(key);
+		if(e==null||!remove(e))return false;
+		invalidations.increment();
+		return true;
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear(){
+		for(Entry e:map.values())remove(e);
+	}
+
+	/**
+	 * 获取文件的缓存（不存在或者已经改变时读取文件）
+	 * 先按获取时使用的路径查找，找不到或者已经改变时再解析真实路径
+	 */
+	private Entry load(File file)throws IOException{
+		Path p=requireNonNull(file).toPath();
+		String alias=file.getPath();
+		BasicFileAttributes a;
+		try{
+			a=Files.readAttributes(p,BasicFileAttributes.class);
+		}catch(NoSuchFileException ex){
+			invalidate(file);
+			throw ex;
+		}
+		String key=aliases.get(alias);
+		Entry e=key==null?null:map.get(key);
+		if(e!=null&&e.valid(a)){
+			e.access=System.nanoTime();
+			hits.increment();
+			return e;
+		}
+		key=key(p);//路径没有记录、符号链接指向的文件改变或者文件被修改
+		e=map.get(key);
+		if(e!=null){
+			if(e.valid(a)){
+				e.access=System.nanoTime();
+				link(alias,e);
+				hits.increment();
+				return e;
+			}
+			if(remove(e))invalidations.increment();
+		}
+		misses.increment();
+		if(!a.isRegularFile())throw new IOException("not a regular file: "+file);
+		int hint=(int)Math.min(a.size(),ChunkedBytes.MAX_ARRAY_SIZE);
+		byte[]data=StreamUtils.stream2bytes(new FileInputStream(file),hint,ChunkedBytes.MAX_ARRAY_SIZE,true);
+		e=new Entry(key,a,data);//使用读取前的属性，读取时文件被修改则下次重新读取
+		if(e.weight>capacity)return e;
+		used.addAndGet(e.weight);
+		Entry old=map.put(key,e);
+		if(old!=null)drop(old);
+		link(alias,e);
+		evict();
+		return e;
+	}
+
+	/**
+	 * 记录获取时使用的路径
+	 */
+	private void link(String alias,Entry e){
+		if(e.key.equals(aliases.get(alias)))return;
+		synchronized(e){
+			if(e.removed)return;
+			aliases.put(alias,e.key);
+			e.aliases.add(alias);
+		}
+	}
+
+	/**
+	 * 从缓存中移除（已经被其他线程移除或者替换时不做任何操作）
+	 * @return 是否移除
+	 */
+	private boolean remove(Entry e){
+		if(!map.remove(e.key,e))return false;
+		drop(e);
+		return true;
+	}
+
+	/**
+	 * 已经从map中移除的文件，释放占用的大小以及路径记录
+	 */
+	private void drop(Entry e){
+		synchronized(e){
+			if(e.removed)return;
+			e.removed=true;
+			used.addAndGet(-e.weight);
+			for(String a:e.aliases)aliases.remove(a,e.key);//已经指向其他文件时保留
+		}
+	}
+
+	/**
+	 * 淘汰最久未访问的文件直到不超过总大小
+	 */
+	private void evict(){
+		if(used.get()<=capacity)return;
+		synchronized(this){
+			while(used.get()>capacity){
+				Entry oldest=null;
+				for(Entry e:map.values())
+					if(oldest==null||e.access-oldest.access<0)oldest=e;
+				if(oldest==null)return;
+				if(remove(oldest))evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * 获取文件的真实路径（解析符号链接以及相对路径）
+	 */
+	private static String key(Path p)throws IOException{
+		return p.toRealPath().toString();
+	}
+
+	/**
+	 * 获取总大小
+	 * @return 总大小（字节）
+	 */
+	public long capacity(){return capacity;}
+
+	/**
+	 * 获取已经占用的大小
+	 * @return 已经占用的大小（字节）
+	 */
+	public long used(){return used.get();}
+
+	/**
+	 * 获取缓存的文件数量
+	 * @return 文件数量
+	 */
+	public int count(){return map.size();}
+
+	/**
+	 * 获取命中的次数
+	 * @return 命中次数
+	 */
+	public long hits(){return hits.sum();}
+
+	/**
+	 * 获取未命中（读取文件）的次数
+	 * @return 未命中次数
+	 */
+	public long misses(){return misses.sum();}
+
+	/**
+	 * 获取因为超过总大小而淘汰的次数
+	 * @return 淘汰次数
+	 */
+	public long evictions(){return evictions.sum();}
+
+	/**
+	 * 获取因为文件被修改、删除或者调用{@link #invalidate(File)}而移除的次数
+	 * @return 移除次数
+	 */
+	public long invalidations(){return invalidations.sum();}
+
+	/**
+	 * 重置统计数据
+	 */
+	public void resetStats(){
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+		invalidations.reset();
+	}
+
+	@Override
+	public String toString(){
+		return "FileCache{capacity="+capacity+",used="+used()+",count="+count()+",hits="+hits()+
+			",misses="+misses()+",evictions="+evictions()+",invalidations="+invalidations()+"}";
+	}
+}
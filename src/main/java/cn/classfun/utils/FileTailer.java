@@ -0,0 +1,330 @@
+package cn.classfun.utils;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 持续读取增长中的文件（类似tail -F）
+ * 记录已经处理到的位置，每次{@link #poll()}只使用位置读取{@link FileChannel#read(ByteBuffer,long)}读取新追加的部分。
+ * 文件变小时视为被截断，从头开始读取；文件标识（inode等）改变时视为被轮转，
+ * 先读取完旧文件剩余的部分再从头读取新文件
+ * <p>示例:</p>
+ * <p>  FileTailer t=new FileTailer(file,FileTailer.lines(UTF_8,(line,off)-&gt;ship(line)),65536,</p>
+ * <p>      FileTailer.Checkpoint.file(new File("app.log.pos")));</p>
+ * <p>  t.follow(1000);//每秒检查一次，直到关闭</p>
+ * （注：监听器未处理的部分（例如不完整的一行）保留在缓冲区中，下次与新的数据一起传入；
+ * 轮转或者截断时这部分会被丢弃）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class FileTailer implements Closeable{
+	private final Path path;
+	private final Listener listener;
+	private final Checkpoint checkpoint;
+	private ByteBuffer buf;
+	private FileChannel channel;
+	private String key;//当前打开的文件的标识
+	private long offset=0;//已经处理到的位置
+	private long read_pos=0;//已经读取到的位置（offset加上缓冲区中未处理的部分）
+	private String saved_key;//最近一次保存到检查点的标识以及位置
+	private long saved_offset=-1;
+	private volatile boolean closed=false;
+
+	/**
+	 * 数据监听器
+	 */
+	public interface Listener{
+		/**
+		 * 读取到新的数据
+		 * 处理后需要移动data的位置（{@link ByteBuffer#position()}），未处理的部分下次与新的数据一起再次传入
+		 * （注：data只在调用期间有效）
+		 * @param data 数据（从位置到界限）
+		 * @param offset data的位置在文件中对应的位置
+		 * @throws IOException 处理失败（停止本次读取，未处理的部分下次再次传入）
+		 */
+		void onData(ByteBuffer data,long offset)throws IOException;
+
+		/**
+		 * 文件被截断或者轮转，接下来从新文件的开头读取
+		 * @param rotated 为true时文件被轮转（标识改变），为false时文件被截断（大小变小）
+		 * @throws IOException 处理失败
+		 */
+		default void onReset(boolean rotated)throws IOException{}
+	}
+
+	/**
+	 * 行监听器
+	 * @see #lines(Charset,LineListener)
+	 */
+	@FunctionalInterface
+	public interface LineListener{
+		/**
+		 * 读取到完整的一行
+		 * @param line 一行（不包含换行符"\n"以及"\r\n"）
+		 * @param offset 这一行在文件中的位置
+		 * @throws IOException 处理失败
+		 */
+		void onLine(String line,long offset)throws IOException;
+	}
+
+	/**
+	 * 检查点（保存以及恢复已经处理到的位置）
+	 * （注：每次{@link #poll()}处理完成后保存，程序在处理后保存前退出时部分数据会被重复处理）
+	 */
+	public interface Checkpoint{
+		/**
+		 * 读取保存的位置
+		 * @param key 文件的标识
+		 * @return 保存的位置（没有保存或者标识不同时为-1）
+		 * @throws IOException 读取失败
+		 */
+		long load(String key)throws IOException;
+
+		/**
+		 * 保存已经处理到的位置
+		 * @param key 文件的标识
+		 * @param offset 已经处理到的位置
+		 * @throws IOException 写入失败
+		 */
+		void save(String key,long offset)throws IOException;
+
+		/**
+		 * 保存到文件中的检查点
+		 * 先写入临时文件再替换，写入中途退出时不会损坏已经保存的位置
+		 * @param file 保存位置的文件
+		 * @return 检查点
+		 */
+		static Checkpoint file(File file){
+			Path p=requireNonNull(file).toPath();
+			return new Checkpoint(){
+				@Override
+				public long load(String key)throws IOException{
+					String[]s;
+					try{
+						s=new String(Files.readAllBytes(p),StandardCharsets.UTF_8).split("\n");
+					}catch(NoSuchFileException e){
+						return -1;
+					}
+					if(s.length<2||!s[0].equals(key))return -1;
+					return NumberUtils.parseLong(s[1].trim(),10,-1);
+				}
+
+				@Override
+				public void save(String key,long offset)throws IOException{
+					Path tmp=p.resolveSibling(p.getFileName()+".tmp");
+					Files.write(tmp,(key+"\n"+offset+"\n").getBytes(StandardCharsets.UTF_8));
+					Files.move(tmp,p,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+				}
+			};
+		}
+	}
+
+	/**
+	 * 创建文件读取器
+	 * （注：创建时不会打开文件，第一次{@link #poll()}时打开，
+	 * 有检查点时从保存的位置开始，否则从文件的开头开始）
+	 * @param file 文件（不能是文件夹，可以还不存在）
+	 * @param listener 数据监听器
+	 * @param buffer_size 单次读取的大小（监听器一直不处理数据时缓冲区会增长）
+	 * @param checkpoint 检查点（为null时不保存）
+	 */
+	public FileTailer(File file,Listener listener,int buffer_size,Checkpoint checkpoint){
+		if(buffer_size<=0)throw new IllegalArgumentException("buffer size must be positive");
+		this.path=requireNonNull(file).toPath();
+		this.listener=requireNonNull(listener);
+		this.checkpoint=checkpoint;
+		this.buf=ByteBuffer.allocate(buffer_size);
+	}
+
+	/**
+	 * 创建文件读取器
+	 * 实际调用{@link #FileTailer(File,Listener,int,Checkpoint)}
+	 * （注：单次读取的大小为8192，不保存检查点）
+	 * @param file 文件（不能是文件夹，可以还不存在）
+	 * @param listener 数据监听器
+	 */
+	public FileTailer(File file,Listener listener){
+		this(file,listener,8192,null);
+	}
+
+	/**
+	 * 将监听器转换为按行处理
+	 * 按"\n"分割，不完整的最后一行留到读取到换行符后再处理
+	 * （注：只支持换行符为单字节0x0A的字符集，例如UTF-8、GBK以及ISO-8859-1）
+	 * @param charset 使用的字符集
+	 * @param listener 行监听器
+	 * @return 数据监听器
+	 */
+	public static Listener lines(Charset charset,LineListener listener){
+		requireNonNull(charset);
+		requireNonNull(listener);
+		return (data,offset)->{
+			int base=data.position(),start=base,lim=data.limit();
+			for(int i=start;i<lim;i++){
+				if(data.get(i)!='\n')continue;
+				int end=i;
+				if(end>start&&data.get(end-1)=='\r')end--;
+				String line;
+				if(data.hasArray())line=new String(data.array(),data.arrayOffset()+start,end-start,charset);
+				else{
+					byte[]b=new byte[end-start];
+					for(int j=0;j<b.length;j++)b[j]=data.get(start+j);
+					line=new String(b,charset);
+				}
+				listener.onLine(line,offset+(start-base));
+				start=i+1;
+				((Buffer)data).position(start);//每处理一行移动一次，失败时已经处理的行不会再次传入
+			}
+		};
+	}
+
+	/**
+	 * 获取已经处理到的位置
+	 * @return 位置
+	 */
+	public synchronized long offset(){return offset;}
+
+	/**
+	 * 获取当前打开的文件的标识
+	 * @return 标识（还没有打开时为null）
+	 */
+	public synchronized String key(){return key;}
+
+	/**
+	 * 获取文件的标识
+	 * 优先使用{@link BasicFileAttributes#fileKey()}（例如设备号以及inode），不支持时使用创建时间
+	 */
+	private static String keyOf(BasicFileAttributes a){
+		Object k=a.fileKey();
+		return k!=null?k.toString():"ctime="+a.creationTime().toMillis();
+	}
+
+	/**
+	 * 打开文件并恢复位置
+	 */
+	private void open(String k)throws IOException{
+		channel=FileChannel.open(path,StandardOpenOption.READ);
+		key=k;
+		long pos=checkpoint==null?-1:checkpoint.load(k);
+		offset=read_pos=pos>=0&&pos<=channel.size()?pos:0;
+		((Buffer)buf).clear();
+	}
+
+	private void closeChannel()throws IOException{
+		FileChannel c=channel;
+		channel=null;
+		key=null;
+		if(c!=null)c.close();
+	}
+
+	/**
+	 * 读取并处理已经追加的数据
+	 * （注：文件不存在时不做任何操作，等待文件被创建；关闭后返回0）
+	 * @return 本次处理的字节数
+	 * @throws IOException 读取失败或者监听器处理失败
+	 */
+	public synchronized long poll()throws IOException{
+		if(closed)return 0;
+		BasicFileAttributes a;
+		try{
+			a=Files.readAttributes(path,BasicFileAttributes.class);
+		}catch(NoSuchFileException e){
+			a=null;//被删除或者正在轮转，先读取完已经打开的文件
+		}
+		long total=0;
+		String k=a==null?null:keyOf(a);
+		if(channel!=null&&k!=null&&!k.equals(key)){//已经被轮转
+			total+=drain();
+			closeChannel();
+			listener.onReset(true);
+			open(k);//检查点中保存的是旧文件的标识，新文件从头开始
+		}else if(channel==null){
+			if(a==null)return 0;
+			open(k);
+		}else if(channel.size()<read_pos){//已经被截断
+			listener.onReset(false);
+			offset=read_pos=0;
+			((Buffer)buf).clear();
+		}
+		total+=drain();
+		save(key);
+		return total;
+	}
+
+	/**
+	 * 位置改变时保存到检查点
+	 */
+	private void save(String k)throws IOException{
+		if(checkpoint==null||k==null)return;
+		if(offset==saved_offset&&k.equals(saved_key))return;
+		checkpoint.save(k,offset);
+		saved_key=k;
+		saved_offset=offset;
+	}
+
+	/**
+	 * 读取已经打开的文件直到结尾，交给监听器处理
+	 */
+	private long drain()throws IOException{
+		long total=0;
+		for(;;){
+			if(!buf.hasRemaining()){//监听器一直不处理时增长缓冲区
+				if(buf.capacity()>=ChunkedBytes.MAX_ARRAY_SIZE>>1)throw new IOException("unconsumed data too large");
+				ByteBuffer b=ByteBuffer.allocate(buf.capacity()<<1);
+				((Buffer)buf).flip();
+				b.put(buf);
+				buf=b;
+			}
+			int n=channel.read(buf,read_pos);
+			if(n<=0)return total;
+			read_pos+=n;
+			((Buffer)buf).flip();
+			try{
+				listener.onData(buf,offset);
+			}finally{
+				int c=buf.position();
+				offset+=c;
+				total+=c;
+				buf.compact();
+			}
+		}
+	}
+
+	/**
+	 * 持续读取直到关闭或者线程被中断
+	 * 没有新的数据时等待指定的时间再检查
+	 * @param interval_millis 检查的间隔（毫秒）
+	 * @throws IOException 读取失败或者监听器处理失败
+	 * @throws InterruptedException 线程被中断
+	 */
+	public void follow(long interval_millis)throws IOException,InterruptedException{
+		if(interval_millis<=0)throw new IllegalArgumentException("interval must be positive");
+		while(!closed){
+			if(poll()==0)Thread.sleep(interval_millis);
+			if(Thread.interrupted())throw new InterruptedException();
+		}
+	}
+
+	/**
+	 * 关闭读取器以及打开的文件
+	 * （注：正在{@link #follow(long)}的线程会在下次检查时退出）
+	 * @throws IOException 关闭失败
+	 */
+	@Override
+	public void close()throws IOException{
+		closed=true;
+		synchronized(this){
+			closeChannel();
+		}
+	}
+}
@@ -1,8 +1,26 @@
 package cn.classfun.utils;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.Checksum;
+import static cn.classfun.utils.StreamUtils.channel2channel;
 import static cn.classfun.utils.StreamUtils.stream2bytes;
 import static cn.classfun.utils.StreamUtils.stream2string;
 /**
@@ -33,7 +51,10 @@ public final class FileUtils {
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static byte[] file2bytes(File file)throws IOException{
-		return stream2bytes(file2stream(file),(int)file.length());
+		long start=IOMetrics.begin();
+		byte[]r=stream2bytes(file2stream(file),(int)file.length());
+		IOMetrics.end(IOMetrics.Op.FILE2BYTES,start,r.length,0);
+		return r;
 	}
 
 	/**
@@ -48,6 +69,344 @@ public final class FileUtils {
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static String file2string(File file)throws IOException{
-		return stream2string(file2stream(file),(int)file.length());
+		long start=IOMetrics.begin();
+		String r=stream2string(file2stream(file),(int)file.length());
+		IOMetrics.end(IOMetrics.Op.FILE2STRING,start,r.length(),0);
+		return r;
+	}
+
+	/**
+	 * 文件转成字符串（读取文件为字符串，指定字符集）
+	 * 读取使用的临时缓冲区从缓冲区池中获取，使用完成后归还
+	 * 实际调用：{@link StreamUtils#stream2string(InputStream,Charset,boolean,BufferPool)}
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @param pool 缓冲区池
+	 * @return 字符串（读取文件成功后的数据）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static String file2string(File file,Charset charset,BufferPool pool)throws IOException{
+		long start=IOMetrics.begin();
+		String r=stream2string(file2stream(file),charset,true,pool);
+		IOMetrics.end(IOMetrics.Op.FILE2STRING,start,r.length(),0);
+		return r;
+	}
+
+	/**
+	 * 文件转成字符串（读取文件为字符串，指定字符集）
+	 * 逐块解码，不需要先读取成完整的二进制数组
+	 * 实际调用：{@link StreamUtils#stream2string(InputStream,Charset,boolean)}
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @return 字符串（读取文件成功后的数据）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static String file2string(File file,Charset charset)throws IOException{
+		long start=IOMetrics.begin();
+		String r=stream2string(file2stream(file),charset,true);
+		IOMetrics.end(IOMetrics.Op.FILE2STRING,start,r.length(),0);
+		return r;
+	}
+
+	/**
+	 * 文件转成二进制数组（使用文件内容缓存）
+	 * 文件未改变时不重新读取
+	 * 实际调用：{@link FileCache#getBytes(File)}
+	 * （注：返回的是副本，需要共享数据时使用{@link #file2buffer(File,FileCache)}）
+	 * @param file 文件（不能是文件夹）
+	 * @param cache 文件内容缓存
+	 * @return 二进制数组（读取文件成功后的数据）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static byte[] file2bytes(File file,FileCache cache)throws IOException{
+		return cache.getBytes(file);
+	}
+
+	/**
+	 * 文件转成字符串（使用文件内容缓存，指定字符集）
+	 * 文件未改变并且字符集相同时返回同一个字符串实例，不重新读取以及解码
+	 * 实际调用：{@link FileCache#getString(File,Charset)}
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @param cache 文件内容缓存
+	 * @return 字符串（读取文件成功后的数据）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static String file2string(File file,Charset charset,FileCache cache)throws IOException{
+		return cache.getString(file,charset);
+	}
+
+	/**
+	 * 文件转成只读缓冲区（使用文件内容缓存）
+	 * 返回的缓冲区共享缓存中的数据，文件未改变时不重新读取
+	 * 实际调用：{@link FileCache#getBuffer(File)}
+	 * @param file 文件（不能是文件夹）
+	 * @param cache 文件内容缓存
+	 * @return 只读缓冲区
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static ByteBuffer file2buffer(File file,FileCache cache)throws IOException{
+		return cache.getBuffer(file);
+	}
+
+	/**
+	 * 将文件映射为只读缓冲区（不复制到堆内存）
+	 * （注：由于int类型的限制，该函数最大支持2GB的文件，更大的文件请使用{@link #file2mapped(File)}）
+	 * （注：映射完成后文件通道会被关闭，缓冲区仍然可以访问）
+	 * @param file 文件（不能是文件夹）
+	 * @return 只读缓冲区
+	 * @throws IOException 找不到文件、文件过大或者读取失败等
+	 */
+	public static ByteBuffer file2buffer(File file)throws IOException{
+		try(FileChannel ch=FileChannel.open(file.toPath(),StandardOpenOption.READ)){
+			long size=ch.size();
+			if(size>Integer.MAX_VALUE)throw new IOException("file too large to map as one buffer: "+size);
+			return ch.map(FileChannel.MapMode.READ_ONLY,0,size);
+		}
+	}
+
+	/**
+	 * 将文件按段映射到内存（不复制到堆内存）
+	 * 支持超过2GB的文件，可以按段遍历或者随机访问
+	 * @see MappedFile
+	 * @param file 文件（不能是文件夹）
+	 * @param segment_size 每一段的大小
+	 * @return 内存映射文件（使用完成后需要关闭）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static MappedFile file2mapped(File file,int segment_size)throws IOException{
+		return new MappedFile(file,segment_size);
+	}
+
+	/**
+	 * 将文件按段映射到内存（不复制到堆内存）
+	 * 实际调用{@link #file2mapped(File,int)}
+	 * （注：使用默认每一段的大小{@link MappedFile#DEFAULT_SEGMENT_SIZE}）
+	 * @param file 文件（不能是文件夹）
+	 * @return 内存映射文件（使用完成后需要关闭）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static MappedFile file2mapped(File file)throws IOException{
+		return file2mapped(file,MappedFile.DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * 复制文件（由内核直接复制，不经过堆内存）
+	 * 目标文件不存在时创建，存在时覆盖
+	 * 实际调用：{@link StreamUtils#channel2channel(java.nio.channels.ReadableByteChannel,java.nio.channels.WritableByteChannel,int,boolean)}
+	 * @param src 来源文件（不能是文件夹）
+	 * @param dst 目标文件（不能是文件夹）
+	 * @return 复制的字节数
+	 * @throws IOException 找不到文件或者读取写入失败等
+	 */
+	public static long file2file(File src,File dst)throws IOException{
+		try(
+			FileChannel in=FileChannel.open(src.toPath(),StandardOpenOption.READ);
+			FileChannel out=FileChannel.open(dst.toPath(),StandardOpenOption.WRITE,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING)
+		){
+			long start=IOMetrics.begin();
+			long n=channel2channel(in,out,8192,false);
+			IOMetrics.end(IOMetrics.Op.FILE2FILE,start,n,8192);
+			return n;
+		}
+	}
+
+	/**
+	 * 复制文件，同时计算摘要以及校验和
+	 * 目标文件不存在时创建，存在时覆盖
+	 * 实际调用：{@link StreamUtils#stream2stream(InputStream,java.io.OutputStream,int,boolean,BufferPool,MessageDigest[],Checksum[])}
+	 * （注：数据需要经过堆内存，没有摘要以及校验和时使用{@link #file2file(File,File)}）
+	 * @param src 来源文件（不能是文件夹）
+	 * @param dst 目标文件（不能是文件夹）
+	 * @param digests 需要更新的摘要（可以为null）
+	 * @param checksums 需要更新的校验和（可以为null）
+	 * @return 复制的字节数
+	 * @throws IOException 找不到文件或者读取写入失败等
+	 */
+	public static long file2file(File src,File dst,MessageDigest[]digests,Checksum[]checksums)throws IOException{
+		if((digests==null||digests.length==0)&&(checksums==null||checksums.length==0))return file2file(src,dst);
+		try(
+			InputStream in=file2stream(src);
+			FileOutputStream out=new FileOutputStream(dst)
+		){
+			return StreamUtils.stream2stream(in,out,65536,false,BufferPool.DEFAULT,digests,checksums);
+		}
+	}
+
+	/**
+	 * 创建持续读取增长中的文件的读取器（按行处理）
+	 * 每次{@link FileTailer#poll()}只读取新追加的部分，而不是重新读取整个文件
+	 * 实际调用：{@link FileTailer#FileTailer(File,FileTailer.Listener,int,FileTailer.Checkpoint)}
+	 * @see FileTailer#lines(Charset,FileTailer.LineListener)
+	 * @param file 文件（不能是文件夹，可以还不存在）
+	 * @param charset 使用的字符集
+	 * @param listener 行监听器
+	 * @param checkpoint 检查点（为null时不保存）
+	 * @return 文件读取器（使用完成后需要关闭）
+	 */
+	public static FileTailer file2tailer(File file,Charset charset,FileTailer.LineListener listener,FileTailer.Checkpoint checkpoint){
+		return new FileTailer(file,FileTailer.lines(charset,listener),65536,checkpoint);
+	}
+
+	/**
+	 * 按分隔符逐条读取文件中的记录
+	 * 返回的流可以调用{@link Stream#parallel()}并行处理，
+	 * 文件会在记录的边界被分割给多个线程（仅限UTF-8、US-ASCII和ISO-8859-1）
+	 * （注：使用完成后需要关闭流，流中的元素是可重复使用的视图，在处理下一条记录后失效）
+	 * @see RecordReader
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @param delimiter 记录分隔符（不能为空，并且不能与自身重叠）
+	 * @param strip_cr 是否去除记录结尾的'\r'
+	 * @return 记录的流
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static Stream<CharSequence> file2records(File file,Charset charset,String delimiter,boolean strip_cr)throws IOException{
+		if(delimiter==null||delimiter.isEmpty())throw new IllegalArgumentException("delimiter must not be empty");
+		FileChannel ch=FileChannel.open(file.toPath(),StandardOpenOption.READ);
+		try{
+			return StreamSupport.stream(new RecordSpliterator(ch,charset,delimiter,strip_cr,0,ch.size()),false).onClose(()->{
+				try{ch.close();}
+				catch(IOException e){throw new UncheckedIOException(e);}
+			});
+		}catch(IOException|RuntimeException e){
+			ch.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 按行读取文件
+	 * 实际调用{@link #file2records(File,Charset,String,boolean)}
+	 * （注：以'\n'分隔，并且去除行结尾的'\r'）
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @return 行的流（使用完成后需要关闭）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static Stream<CharSequence> file2lines(File file,Charset charset)throws IOException{
+		return file2records(file,charset,RecordReader.LINE,true);
+	}
+
+	/**
+	 * 将文件分成多块并行处理，然后按顺序合并每一块的结果
+	 * 每一块的大小向上对齐到4KB，指定分隔符时每一块的结尾会向后移动到分隔符之后，保证记录不会被分割。
+	 * 每一块在处理时才映射到内存中，不会复制到堆内存
+	 * （注：空文件会作为一个空的块处理）
+	 * @param file 文件（不能是文件夹）
+	 * @param chunk_size 每一块的大小
+	 * @param delimiter 记录分隔符的字节（为null时不考虑记录的边界）
+	 * @param processor 每一块的处理器
+	 * @param combiner 按文件中的顺序合并两个结果
+	 * @param executor 执行处理的线程池
+	 * @param <R> 处理结果
+	 * @return 合并后的结果
+	 * @throws IOException 找不到文件、读取失败、某一块超过2GB或者处理失败等
+	 */
+	public static <R>R processChunks(
+		File file,
+		long chunk_size,
+		byte[]delimiter,
+		ChunkProcessor<R>processor,
+		BinaryOperator<R>combiner,
+		Executor executor
+	)throws IOException{
+		if(chunk_size<=0)throw new IllegalArgumentException("chunk size must be positive");
+		if(delimiter!=null&&delimiter.length==0)throw new IllegalArgumentException("delimiter must not be empty");
+		long aligned=(chunk_size+4095)&~4095L;//对齐到页的大小
+		try(FileChannel ch=FileChannel.open(file.toPath(),StandardOpenOption.READ)){
+			long size=ch.size();
+			List<long[]>ranges=new ArrayList<>();
+			long start=0;
+			do{
+				long end=start+aligned;
+				if(end>=size)end=size;
+				else if(delimiter!=null){//移动到下一条记录的开头
+					end=RecordSpliterator.boundary(ch,delimiter,Math.max(start,end-(delimiter.length-1)),size);
+					if(end<0)end=size;
+				}
+				if(end-start>Integer.MAX_VALUE)throw new IOException("chunk too large to map: "+(end-start));
+				ranges.add(new long[]{start,end});
+				start=end;
+			}while(start<size);
+			List<CompletableFuture<R>>tasks=new ArrayList<>(ranges.size());
+			for(long[]r:ranges)tasks.add(CompletableFuture.supplyAsync(()->{
+				try{return processor.process(ch.map(FileChannel.MapMode.READ_ONLY,r[0],r[1]-r[0]),r[0]);}
+				catch(IOException e){throw new UncheckedIOException(e);}
+			},executor));
+			R result=null;
+			try{
+				for(int i=0;i<tasks.size();i++){
+					R r=tasks.get(i).join();
+					result=i==0?r:combiner.apply(result,r);
+				}
+			}catch(CompletionException e){
+				for(CompletableFuture<R>t:tasks)t.cancel(false);
+				Throwable c=e.getCause();
+				if(c instanceof UncheckedIOException)throw ((UncheckedIOException)c).getCause();
+				if(c instanceof RuntimeException)throw (RuntimeException)c;
+				if(c instanceof Error)throw (Error)c;
+				throw e;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * 将文件分成多块并行处理，然后按顺序合并每一块的结果
+	 * 实际调用{@link #processChunks(File,long,byte[],ChunkProcessor,BinaryOperator,Executor)}
+	 * （注：使用{@link ForkJoinPool#commonPool()}）
+	 * @param file 文件（不能是文件夹）
+	 * @param chunk_size 每一块的大小
+	 * @param delimiter 记录分隔符的字节（为null时不考虑记录的边界）
+	 * @param processor 每一块的处理器
+	 * @param combiner 按文件中的顺序合并两个结果
+	 * @param <R> 处理结果
+	 * @return 合并后的结果
+	 * @throws IOException 找不到文件、读取失败、某一块超过2GB或者处理失败等
+	 */
+	public static <R>R processChunks(
+		File file,
+		long chunk_size,
+		byte[]delimiter,
+		ChunkProcessor<R>processor,
+		BinaryOperator<R>combiner
+	)throws IOException{
+		return processChunks(file,chunk_size,delimiter,processor,combiner,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 异步读取文件为二进制数组
+	 * 实际调用{@link AsyncIO#file2bytes(File)}
+	 * （注：使用默认的{@link AsyncIO#DEFAULT}）
+	 * @param file 文件（不能是文件夹）
+	 * @return 二进制数组（读取文件成功后的数据）
+	 */
+	public static CompletableFuture<byte[]> file2bytesAsync(File file){
+		return AsyncIO.DEFAULT.file2bytes(file);
+	}
+
+	/**
+	 * 异步读取文件为字符串（指定字符集）
+	 * 实际调用{@link AsyncIO#file2string(File,Charset)}
+	 * （注：使用默认的{@link AsyncIO#DEFAULT}）
+	 * @param file 文件（不能是文件夹）
+	 * @param charset 使用的字符集
+	 * @return 字符串（读取文件成功后的数据）
+	 */
+	public static CompletableFuture<String> file2stringAsync(File file,Charset charset){
+		return AsyncIO.DEFAULT.file2string(file,charset);
+	}
+
+	/**
+	 * 异步复制文件
+	 * 实际调用{@link AsyncIO#copy(File,File)}
+	 * （注：使用默认的{@link AsyncIO#DEFAULT}）
+	 * @param src 来源文件（不能是文件夹）
+	 * @param dst 目标文件（不能是文件夹）
+	 * @return 复制的字节数
+	 */
+	public static CompletableFuture<Long> file2fileAsync(File src,File dst){
+		return AsyncIO.DEFAULT.copy(src,dst);
 	}
 }
@@ -0,0 +1,397 @@
+package cn.classfun.utils;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 输入输出指标
+ * 记录{@link StreamUtils}以及{@link FileUtils}中主要操作的调用次数、字节数、耗时分布以及缓冲区大小分布。
+ * 默认关闭，关闭时每次操作只多读取一次volatile变量；
+ * 可以通过系统属性"cn.classfun.utils.metrics=true"或者{@link #setEnabled(boolean)}打开。
+ * 计数全部使用{@link LongAdder}，多个线程同时记录时按线程分散到不同的单元，不加锁
+ * <p>示例:</p>
+ * <p>  IOMetrics.setEnabled(true);</p>
+ * <p>  IOMetrics.register();//通过JMX查看</p>
+ * <p>  IOMetrics.stats(IOMetrics.Op.STREAM2STREAM).latency().percentile(0.99);</p>
+ * （注：只记录成功完成的操作，嵌套调用时外层与内层的操作分别记录）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class IOMetrics{
+	private IOMetrics(){throw new RuntimeException();}
+	public static final String OBJECT_NAME="cn.classfun.utils:type=IOMetrics";//JMX中注册的名称
+	private static volatile boolean enabled=Boolean.getBoolean("cn.classfun.utils.metrics");
+	private static volatile Listener[]listeners=new Listener[0];
+	private static final Stats[]STATS=new Stats[Op.values().length];
+	static{
+		for(int i=0;i<STATS.length;i++)STATS[i]=new Stats();
+	}
+
+	/**
+	 * 记录的操作
+	 * （注：STREAM2STRING以及FILE2STRING记录的是解码后的字符数而不是字节数）
+	 */
+	public enum Op{
+		STREAM2STREAM,//StreamUtils.stream2stream
+		CHANNEL2CHANNEL,//StreamUtils.channel2channel
+		STREAM2BYTES,//StreamUtils.stream2bytes
+		STREAM2STRING,//StreamUtils.stream2string
+		FILE2BYTES,//FileUtils.file2bytes
+		FILE2STRING,//FileUtils.file2string
+		FILE2FILE,//FileUtils.file2file
+	}
+
+	/**
+	 * 操作监听器
+	 * （注：在执行操作的线程中同步调用，需要尽快返回，抛出的异常会被忽略）
+	 */
+	@FunctionalInterface
+	public interface Listener{
+		/**
+		 * 一次操作完成
+		 * @param op 操作
+		 * @param bytes 读取或者写入的字节数（字符串操作为字符数）
+		 * @param nanos 耗时（纳秒）
+		 * @param buffer_size 使用的缓冲区大小（未知时为0）
+		 */
+		void onOperation(Op op,long bytes,long nanos,int buffer_size);
+	}
+
+	/**
+	 * 对数分桶的直方图
+	 * 按2的幂次分级，每一级再平均分为{@link #SUB_BUCKETS}个桶（与HdrHistogram相同的思路），
+	 * 相对误差不超过1/{@link #SUB_BUCKETS}，记录时不加锁
+	 * （注：小于0的值视为0）
+	 */
+	public static final class Histogram{
+		public static final int SUB_SHIFT=3;
+		public static final int SUB_BUCKETS=1<<SUB_SHIFT;
+		public static final int BUCKETS=(63-SUB_SHIFT+1)*SUB_BUCKETS;
+		private final LongAdder[]counts=new LongAdder[BUCKETS];
+		private final LongAdder sum=new LongAdder();
+		private final LongAccumulator max=new LongAccumulator(Math::max,0);
+
+		public Histogram(){
+			for(int i=0;i<BUCKETS;i++)counts[i]=new LongAdder();
+		}
+
+		/**
+		 * 获取值所在的桶
+		 * @param value 值
+		 * @return 桶的位置
+		 */
+		public static int bucketOf(long value){
+			if(value<SUB_BUCKETS)return value<0?0:(int)value;
+			int e=63-Long.numberOfLeadingZeros(value);//最高位的位置
+			int m=(int)(value>>>(e-SUB_SHIFT))&(SUB_BUCKETS-1);
+			return (e-SUB_SHIFT+1)*SUB_BUCKETS+m;
+		}
+
+		/**
+		 * 获取桶中最小的值
+		 * @param bucket 桶的位置
+		 * @return 最小的值
+		 */
+		public static long lowerBound(int bucket){
+			if(bucket<SUB_BUCKETS)return bucket;
+			int e=bucket/SUB_BUCKETS+SUB_SHIFT-1;
+			long m=bucket&(SUB_BUCKETS-1);
+			return (SUB_BUCKETS|m)<<(e-SUB_SHIFT);
+		}
+
+		/**
+		 * 获取桶中最大的值
+		 * @param bucket 桶的位置
+		 * @return 最大的值
+		 */
+		public static long upperBound(int bucket){
+			return bucket+1>=BUCKETS?Long.MAX_VALUE:lowerBound(bucket+1)-1;
+		}
+
+		/**
+		 * 记录一个值
+		 * @param value 值
+		 */
+		public void record(long value){
+			if(value<0)value=0;
+			counts[bucketOf(value)].increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		/**
+		 * 获取记录的数量
+		 * @return 数量
+		 */
+		public long count(){
+			long n=0;
+			for(LongAdder c:counts)n+=c.sum();
+			return n;
+		}
+
+		/**
+		 * 获取所有值的总和
+		 * @return 总和
+		 */
+		public long sum(){return sum.sum();}
+
+		/**
+		 * 获取最大的值
+		 * @return 最大的值（没有记录时为0）
+		 */
+		public long max(){return max.get();}
+
+		/**
+		 * 获取平均值
+		 * @return 平均值（没有记录时为0）
+		 */
+		public double mean(){
+			long n=count();
+			return n==0?0:(double)sum()/n;
+		}
+
+		/**
+		 * 获取百分位数
+		 * 返回该位置所在的桶中最大的值（不超过记录的最大值）
+		 * <p>示例:</p>
+		 * <p>  percentile(0.5)为中位数，percentile(0.99)为P99</p>
+		 * @param p 百分位（0到1之间）
+		 * @return 百分位数（没有记录时为0）
+		 */
+		public long percentile(double p){
+			if(!(p>=0&&p<=1))throw new IllegalArgumentException("percentile out of range: "+p);
+			long[]snap=counts();
+			long total=0;
+			for(long c:snap)total+=c;
+			if(total==0)return 0;
+			long rank=Math.max(1,(long)Math.ceil(p*total));
+			long seen=0;
+			for(int i=0;i<BUCKETS;i++){
+				seen+=snap[i];
+				if(seen>=rank)return Math.min(upperBound(i),max());
+			}
+			return max();
+		}
+
+		/**
+		 * 获取每个桶中记录的数量
+		 * （注：并发记录时各个桶之间不是同一时刻的快照）
+		 * @see #lowerBound(int)
+		 * @return 每个桶的数量（长度为{@link #BUCKETS}）
+		 */
+		public long[] counts(){
+			long[]r=new long[BUCKETS];
+			for(int i=0;i<BUCKETS;i++)r[i]=counts[i].sum();
+			return r;
+		}
+
+		/**
+		 * 清空所有记录
+		 */
+		public void reset(){
+			for(LongAdder c:counts)c.reset();
+			sum.reset();
+			max.reset();
+		}
+	}
+
+	/**
+	 * 一种操作的统计
+	 */
+	public static final class Stats{
+		private final LongAdder calls=new LongAdder();
+		private final LongAdder bytes=new LongAdder();
+		private final Histogram latency=new Histogram();
+		private final Histogram buffer_sizes=new Histogram();
+
+		Stats(){}
+
+		void record(long bytes,long nanos,int buffer_size){
+			calls.increment();
+			this.bytes.add(bytes);
+			latency.record(nanos);
+			if(buffer_size>0)buffer_sizes.record(buffer_size);
+		}
+
+		/**
+		 * 获取调用次数
+		 * @return 调用次数
+		 */
+		public long calls(){return calls.sum();}
+
+		/**
+		 * 获取读取或者写入的总字节数
+		 * @return 总字节数
+		 */
+		public long bytes(){return bytes.sum();}
+
+		/**
+		 * 获取耗时分布（纳秒）
+		 * @return 直方图
+		 */
+		public Histogram latency(){return latency;}
+
+		/**
+		 * 获取缓冲区大小分布（字节）
+		 * @return 直方图
+		 */
+		public Histogram bufferSizes(){return buffer_sizes;}
+
+		/**
+		 * 清空统计
+		 */
+		public void reset(){
+			calls.reset();
+			bytes.reset();
+			latency.reset();
+			buffer_sizes.reset();
+		}
+	}
+
+	/**
+	 * 判断是否正在记录
+	 * @return 是否正在记录
+	 */
+	public static boolean isEnabled(){return enabled;}
+
+	/**
+	 * 打开或者关闭记录
+	 * @param enable 是否记录
+	 */
+	public static void setEnabled(boolean enable){enabled=enable;}
+
+	/**
+	 * 获取一种操作的统计
+	 * @param op 操作
+	 * @return 统计
+	 */
+	public static Stats stats(Op op){
+		return STATS[requireNonNull(op).ordinal()];
+	}
+
+	/**
+	 * 清空所有操作的统计
+	 */
+	public static void reset(){
+		for(Stats s:STATS)s.reset();
+	}
+
+	/**
+	 * 添加监听器
+	 * @param listener 监听器
+	 */
+	public static synchronized void addListener(Listener listener){
+		requireNonNull(listener);
+		Listener[]l=Arrays.copyOf(listeners,listeners.length+1);
+		l[l.length-1]=listener;
+		listeners=l;
+	}
+
+	/**
+	 * 移除监听器
+	 * @param listener 监听器
+	 * @return 是否找到并移除
+	 */
+	public static synchronized boolean removeListener(Listener listener){
+		Listener[]l=listeners;
+		for(int i=0;i<l.length;i++){
+			if(l[i]!=listener)continue;
+			Listener[]n=new Listener[l.length-1];
+			System.arraycopy(l,0,n,0,i);
+			System.arraycopy(l,i+1,n,i,n.length-i);
+			listeners=n;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 开始一次操作
+	 * @return 开始的时间（未打开记录时为0）
+	 */
+	static long begin(){
+		return enabled?System.nanoTime()|1:0;//保证不为0
+	}
+
+	/**
+	 * 结束一次操作
+	 * @param op 操作
+	 * @param start {@link #begin()}的返回值（为0时不记录）
+	 * @param bytes 读取或者写入的字节数
+	 * @param buffer_size 使用的缓冲区大小（未知时为0）
+	 */
+	static void end(Op op,long start,long bytes,int buffer_size){
+		if(start==0)return;
+		long nanos=System.nanoTime()-start;
+		STATS[op.ordinal()].record(bytes,nanos,buffer_size);
+		for(Listener l:listeners){
+			try{
+				l.onOperation(op,bytes,nanos,buffer_size);
+			}catch(RuntimeException ignored){
+				//监听器的错误不能影响输入输出
+			}
+		}
+	}
+
+	/**
+	 * 注册到平台的MBeanServer中（名称为{@link #OBJECT_NAME}）
+	 * （注：已经注册时不重复注册）
+	 * @return 注册的名称
+	 */
+	public static synchronized ObjectName register(){
+		try{
+			ObjectName name=new ObjectName(OBJECT_NAME);
+			MBeanServer server=ManagementFactory.getPlatformMBeanServer();
+			if(!server.isRegistered(name))server.registerMBean(new MXBean(),name);
+			return name;
+		}catch(JMException e){
+			throw new IllegalStateException("failed to register "+OBJECT_NAME,e);
+		}
+	}
+
+	/**
+	 * 从平台的MBeanServer中移除
+	 * （注：未注册时不做任何操作）
+	 */
+	public static synchronized void unregister(){
+		try{
+			ObjectName name=new ObjectName(OBJECT_NAME);
+			MBeanServer server=ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(name))server.unregisterMBean(name);
+		}catch(JMException e){
+			throw new IllegalStateException("failed to unregister "+OBJECT_NAME,e);
+		}
+	}
+
+	/**
+	 * 按操作名称收集每一种操作的一个值
+	 */
+	private static Map<String,Long> collect(ToLongFunction<Stats>f){
+		Map<String,Long>m=new LinkedHashMap<>();
+		for(Op op:Op.values())m.put(op.name(),f.applyAsLong(STATS[op.ordinal()]));
+		return m;
+	}
+
+	/**
+	 * JMX接口的实现
+	 */
+	private static final class MXBean implements IOMetricsMXBean{
+		@Override public boolean isEnabled(){return IOMetrics.isEnabled();}
+		@Override public void setEnabled(boolean enable){IOMetrics.setEnabled(enable);}
+		@Override public Map<String,Long> getCalls(){return collect(Stats::calls);}
+		@Override public Map<String,Long> getBytes(){return collect(Stats::bytes);}
+		@Override public Map<String,Long> getLatencyMeanNanos(){return collect(s->(long)s.latency().mean());}
+		@Override public Map<String,Long> getLatencyP50Nanos(){return collect(s->s.latency().percentile(0.5));}
+		@Override public Map<String,Long> getLatencyP99Nanos(){return collect(s->s.latency().percentile(0.99));}
+		@Override public Map<String,Long> getLatencyMaxNanos(){return collect(s->s.latency().max());}
+		@Override public Map<String,Long> getBufferSizeP50(){return collect(s->s.bufferSizes().percentile(0.5));}
+		@Override public Map<String,Long> getBufferSizeMax(){return collect(s->s.bufferSizes().max());}
+		@Override public void reset(){IOMetrics.reset();}
+	}
+}
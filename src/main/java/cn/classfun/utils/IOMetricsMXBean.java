@@ -0,0 +1,74 @@
+package cn.classfun.utils;
+import java.util.Map;
+/**
+ * 输入输出指标的JMX接口
+ * 每个属性都是以操作名称（{@link IOMetrics.Op#name()}）为键的表
+ * @see IOMetrics#register()
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public interface IOMetricsMXBean{
+	/**
+	 * 判断是否正在记录
+	 * @return 是否正在记录
+	 */
+	boolean isEnabled();
+
+	/**
+	 * 打开或者关闭记录
+	 * @param enable 是否记录
+	 */
+	void setEnabled(boolean enable);
+
+	/**
+	 * 获取调用次数
+	 * @return 每种操作的调用次数
+	 */
+	Map<String,Long> getCalls();
+
+	/**
+	 * 获取总字节数
+	 * @return 每种操作的总字节数
+	 */
+	Map<String,Long> getBytes();
+
+	/**
+	 * 获取平均耗时
+	 * @return 每种操作的平均耗时（纳秒）
+	 */
+	Map<String,Long> getLatencyMeanNanos();
+
+	/**
+	 * 获取耗时的中位数
+	 * @return 每种操作耗时的中位数（纳秒）
+	 */
+	Map<String,Long> getLatencyP50Nanos();
+
+	/**
+	 * 获取耗时的P99
+	 * @return 每种操作耗时的P99（纳秒）
+	 */
+	Map<String,Long> getLatencyP99Nanos();
+
+	/**
+	 * 获取最大耗时
+	 * @return 每种操作的最大耗时（纳秒）
+	 */
+	Map<String,Long> getLatencyMaxNanos();
+
+	/**
+	 * 获取缓冲区大小的中位数
+	 * @return 每种操作缓冲区大小的中位数（字节，未知时为0）
+	 */
+	Map<String,Long> getBufferSizeP50();
+
+	/**
+	 * 获取最大的缓冲区大小
+	 * @return 每种操作最大的缓冲区大小（字节，未知时为0）
+	 */
+	Map<String,Long> getBufferSizeMax();
+
+	/**
+	 * 清空所有操作的统计
+	 */
+	void reset();
+}
@@ -0,0 +1,137 @@
+package cn.classfun.utils;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+/**
+ * 只读的内存映射文件
+ * 将文件按段映射到内存中，数据不会被复制到堆内存，
+ * 可以处理超过{@link Integer#MAX_VALUE}（2GB）的文件
+ * （注：关闭后已经映射的段仍然可以访问，直到被垃圾回收）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class MappedFile implements Closeable,Iterable<ByteBuffer>{
+	public static final int DEFAULT_SEGMENT_SIZE=1<<30;//默认每一段的大小(1GB)
+	private final FileChannel channel;
+	private final long size;
+	private final int segment_size;
+	private MappedByteBuffer current;//get(long)最近一次使用的段
+	private long current_start=-1;
+
+	/**
+	 * 打开并映射文件
+	 * @param file 文件（不能是文件夹）
+	 * @param segment_size 每一段的大小
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public MappedFile(File file,int segment_size)throws IOException{
+		if(segment_size<=0)throw new IllegalArgumentException("segment size must be positive");
+		this.channel=FileChannel.open(file.toPath(),StandardOpenOption.READ);
+		this.size=channel.size();
+		this.segment_size=segment_size;
+	}
+
+	/**
+	 * 打开并映射文件
+	 * （注：使用默认每一段的大小{@link #DEFAULT_SEGMENT_SIZE}）
+	 * @param file 文件（不能是文件夹）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public MappedFile(File file)throws IOException{
+		this(file,DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * 获取文件大小
+	 * @return 文件大小（打开时的大小）
+	 */
+	public long size(){return size;}
+
+	/**
+	 * 获取每一段的大小
+	 * @return 每一段的大小
+	 */
+	public int segmentSize(){return segment_size;}
+
+	/**
+	 * 获取段的数量
+	 * @return 段的数量
+	 */
+	public int segmentCount(){return (int)((size+segment_size-1)/segment_size);}
+
+	/**
+	 * 映射文件的一部分为只读缓冲区
+	 * @param pos 开始位置
+	 * @param len 长度
+	 * @return 只读缓冲区
+	 * @throws IOException 映射失败
+	 */
+	public ByteBuffer map(long pos,int len)throws IOException{
+		if(pos<0||len<0||pos+len>size)throw new IndexOutOfBoundsException();
+		return channel.map(FileChannel.MapMode.READ_ONLY,pos,len);
+	}
+
+	/**
+	 * 映射指定的段为只读缓冲区
+	 * @param index 段的序号
+	 * @return 只读缓冲区
+	 * @throws IOException 映射失败
+	 */
+	public ByteBuffer segment(int index)throws IOException{
+		if(index<0||index>=segmentCount())throw new IndexOutOfBoundsException();
+		long pos=(long)index*segment_size;
+		return map(pos,(int)Math.min(segment_size,size-pos));
+	}
+
+	/**
+	 * 读取指定位置的字节
+	 * （注：非线程安全）
+	 * @param pos 位置
+	 * @return 字节
+	 * @throws IOException 映射失败
+	 */
+	public byte get(long pos)throws IOException{
+		if(pos<0||pos>=size)throw new IndexOutOfBoundsException();
+		long start=pos-pos%segment_size;
+		if(start!=current_start){
+			current=channel.map(FileChannel.MapMode.READ_ONLY,start,Math.min(segment_size,size-start));
+			current_start=start;
+		}
+		return current.get((int)(pos-start));
+	}
+
+	/**
+	 * 按段遍历文件，每一段在遍历到时才映射
+	 * （注：映射失败时抛出{@link UncheckedIOException}）
+	 * @return 段的迭代器
+	 */
+	@Override
+	public Iterator<ByteBuffer> iterator(){
+		return new Iterator<ByteBuffer>(){
+			private int index=0;
+			private final int count=segmentCount();
+			@Override public boolean hasNext(){return index<count;}
+			@Override public ByteBuffer next(){
+				if(!hasNext())throw new NoSuchElementException();
+				try{return segment(index++);}
+				catch(IOException e){throw new UncheckedIOException(e);}
+			}
+		};
+	}
+
+	/**
+	 * 关闭文件通道
+	 * @throws IOException 关闭失败
+	 */
+	@Override
+	public void close()throws IOException{
+		current=null;
+		channel.close();
+	}
+}
@@ -1,10 +1,31 @@
 package cn.classfun.utils;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
 /**
  * 数字工具
+ * 随机数默认使用{@link ThreadLocalRandom}（每个线程独立，没有竞争），
+ * 指定种子时使用{@link SplittableRandom}（相同的种子生成相同的序列，并行时也相同）。
+ * 所有范围都包含最小值和最大值，并且每个值的概率相同。
+ * 解析与格式化支持二进制、十进制以及十六进制，解析时在一次遍历中同时检测与转换，出错时不抛出异常
  */
 @SuppressWarnings({"unused","RedundantSuppression"})
 public final class NumberUtils{
 	private NumberUtils(){throw new RuntimeException();}
+	private static final byte[]DIGITS=new byte[128];//ASCII字符对应的数值（无效时为-1）
+	private static final char[]HEX="0123456789abcdef".toCharArray();
+	private static final ThreadLocal<long[]>SCRATCH=ThreadLocal.withInitial(()->new long[1]);//解析时使用的临时空间
+
+	static{
+		Arrays.fill(DIGITS,(byte)-1);
+		for(int i=0;i<16;i++){
+			DIGITS[HEX[i]]=(byte)i;
+			DIGITS[Character.toUpperCase(HEX[i])]=(byte)i;
+		}
+	}
 
 	/**
 	 * 在指定范围生成随机数
@@ -12,18 +33,522 @@ public final class NumberUtils{
 	 * <p>  random(10,0) = 3</p>
 	 * <p>  random(10,0) = 8</p>
 	 * <p>  random(100,1) = 40</p>
-	 * @see Math#random()
+	 * （注：包含max和min，max小于min时自动交换）
+	 * @see ThreadLocalRandom#nextLong(long,long)
 	 * @param max 最大值
 	 * @param min 最小值
 	 * @return 随机数
 	 */
-	public static long random(long max,long min){return Math.round(Math.random()*(max-min))+min;}
+	public static long random(long max,long min){
+		return random(ThreadLocalRandom.current(),null,max,min);
+	}
+
+	/**
+	 * 在范围内生成随机数（t不为null时使用t，否则使用s）
+	 * （注：包含max和min，max小于min时自动交换）
+	 */
+	private static long random(ThreadLocalRandom t,SplittableRandom s,long max,long min){
+		if(max<min){long x=max;max=min;min=x;}
+		if(max!=Long.MAX_VALUE)return t!=null?t.nextLong(min,max+1):s.nextLong(min,max+1);
+		if(min!=Long.MIN_VALUE)return (t!=null?t.nextLong(min-1,max):s.nextLong(min-1,max))+1;
+		return t!=null?t.nextLong():s.nextLong();
+	}
 
 	/**
 	 * 在0到指定最大值之间生成随机数
-	 * @see #random(long)
+	 * @see #random(long,long)
 	 * @param max 最大值
 	 * @return 随机数
 	 */
 	public static long random(long max){return random(max,0);}
+
+	/**
+	 * 在指定范围生成随机数（int类型）
+	 * （注：包含max和min，max小于min时自动交换）
+	 * @see ThreadLocalRandom#nextInt(int,int)
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数
+	 */
+	public static int randomInt(int max,int min){
+		return randomInt(ThreadLocalRandom.current(),null,max,min);
+	}
+
+	/**
+	 * 在范围内生成随机数（int类型，t不为null时使用t，否则使用s）
+	 * （注：包含max和min，max小于min时自动交换）
+	 */
+	private static int randomInt(ThreadLocalRandom t,SplittableRandom s,int max,int min){
+		if(max<min){int x=max;max=min;min=x;}
+		if(max!=Integer.MAX_VALUE)return t!=null?t.nextInt(min,max+1):s.nextInt(min,max+1);
+		if(min!=Integer.MIN_VALUE)return (t!=null?t.nextInt(min-1,max):s.nextInt(min-1,max))+1;
+		return t!=null?t.nextInt():s.nextInt();
+	}
+
+	/**
+	 * 在0到指定最大值之间生成随机数（int类型）
+	 * @see #randomInt(int,int)
+	 * @param max 最大值
+	 * @return 随机数
+	 */
+	public static int randomInt(int max){return randomInt(max,0);}
+
+	/**
+	 * 使用指定的生成器在范围内生成随机数
+	 * （注：包含max和min，max小于min时自动交换）
+	 * @param rnd 随机数生成器
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数
+	 */
+	public static long random(SplittableRandom rnd,long max,long min){
+		return random(null,requireNonNull(rnd),max,min);
+	}
+
+	/**
+	 * 使用指定的生成器在范围内生成随机数（int类型）
+	 * （注：包含max和min，max小于min时自动交换）
+	 * @param rnd 随机数生成器
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数
+	 */
+	public static int randomInt(SplittableRandom rnd,int max,int min){
+		return randomInt(null,requireNonNull(rnd),max,min);
+	}
+
+	/**
+	 * 使用随机数填充数组
+	 * @param arr 需要填充的数组
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return arr
+	 */
+	public static long[] fill(long[]arr,long max,long min){
+		for(int i=0;i<requireNonNull(arr).length;i++)arr[i]=random(max,min);
+		return arr;
+	}
+
+	/**
+	 * 使用指定种子的随机数填充数组（相同的种子得到相同的结果）
+	 * @param arr 需要填充的数组
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @param seed 随机数种子
+	 * @return arr
+	 */
+	public static long[] fill(long[]arr,long max,long min,long seed){
+		SplittableRandom rnd=new SplittableRandom(seed);
+		for(int i=0;i<requireNonNull(arr).length;i++)arr[i]=random(rnd,max,min);
+		return arr;
+	}
+
+	/**
+	 * 使用随机数填充数组（int类型）
+	 * @param arr 需要填充的数组
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return arr
+	 */
+	public static int[] fill(int[]arr,int max,int min){
+		for(int i=0;i<requireNonNull(arr).length;i++)arr[i]=randomInt(max,min);
+		return arr;
+	}
+
+	/**
+	 * 使用指定种子的随机数填充数组（int类型，相同的种子得到相同的结果）
+	 * @param arr 需要填充的数组
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @param seed 随机数种子
+	 * @return arr
+	 */
+	public static int[] fill(int[]arr,int max,int min,long seed){
+		SplittableRandom rnd=new SplittableRandom(seed);
+		for(int i=0;i<requireNonNull(arr).length;i++)arr[i]=randomInt(rnd,max,min);
+		return arr;
+	}
+
+	/**
+	 * 生成指定数量的随机数流
+	 * 可以使用{@link LongStream#parallel()}并行生成，相同的生成器状态得到相同的结果
+	 * @param rnd 随机数生成器
+	 * @param count 数量
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数流
+	 */
+	public static LongStream randoms(SplittableRandom rnd,long count,long max,long min){
+		return randoms(null,requireNonNull(rnd),count,max,min);
+	}
+
+	/**
+	 * 生成指定数量的随机数流（t不为null时使用t，否则使用s）
+	 * （注：包含max和min，max小于min时自动交换）
+	 */
+	private static LongStream randoms(ThreadLocalRandom t,SplittableRandom s,long count,long max,long min){
+		if(max<min){long x=max;max=min;min=x;}
+		if(max!=Long.MAX_VALUE)return t!=null?t.longs(count,min,max+1):s.longs(count,min,max+1);
+		if(min!=Long.MIN_VALUE)return (t!=null?t.longs(count,min-1,max):s.longs(count,min-1,max)).map(v->v+1);
+		return t!=null?t.longs(count):s.longs(count);
+	}
+
+	/**
+	 * 生成指定数量的随机数流（指定种子，结果可以重现）
+	 * @see #randoms(SplittableRandom,long,long,long)
+	 * @param seed 随机数种子
+	 * @param count 数量
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数流
+	 */
+	public static LongStream randoms(long seed,long count,long max,long min){
+		return randoms(new SplittableRandom(seed),count,max,min);
+	}
+
+	/**
+	 * 生成指定数量的随机数流
+	 * 使用{@link ThreadLocalRandom}，并行时每个线程使用自己的生成器
+	 * @param count 数量
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数流
+	 */
+	public static LongStream randoms(long count,long max,long min){
+		return randoms(ThreadLocalRandom.current(),null,count,max,min);
+	}
+
+	/**
+	 * 生成指定数量的随机数流（int类型，指定种子，结果可以重现）
+	 * @param seed 随机数种子
+	 * @param count 数量
+	 * @param max 最大值
+	 * @param min 最小值
+	 * @return 随机数流
+	 */
+	public static IntStream randomInts(long seed,long count,int max,int min){
+		if(max<min){int t=max;max=min;min=t;}
+		SplittableRandom rnd=new SplittableRandom(seed);
+		if(max!=Integer.MAX_VALUE)return rnd.ints(count,min,max+1);
+		if(min!=Integer.MIN_VALUE)return rnd.ints(count,min-1,max).map(v->v+1);
+		return rnd.ints(count);
+	}
+
+	/**
+	 * 检测进制是否支持
+	 * @param radix 进制
+	 */
+	private static void checkRadix(int radix){
+		if(radix!=2&&radix!=10&&radix!=16)throw new IllegalArgumentException("radix must be 2, 10 or 16");
+	}
+
+	/**
+	 * 获取字符对应的数值
+	 * @param c 字符
+	 * @param radix 进制
+	 * @return 数值（无效时为-1）
+	 */
+	private static int digit(int c,int radix){
+		int d=c>=0&&c<128?DIGITS[c]:-1;
+		return d<radix?d:-1;
+	}
+
+	/**
+	 * 获取第i个字符（b不为null时从b中读取，否则从s中读取）
+	 */
+	private static int charAt(CharSequence s,byte[]b,int i){
+		return b!=null?b[i]:s.charAt(i);
+	}
+
+	/**
+	 * 解析字符串或者ASCII字节为长整数（字符串以及字节共用）
+	 * @return 是否解析成功（成功时将结果写入out[0]）
+	 */
+	private static boolean parse(CharSequence s,byte[]b,int i,int end,int radix,long[]out){
+		checkRadix(radix);
+		if(i>=end)return false;
+		if(radix==10){
+			int c=charAt(s,b,i);
+			boolean neg=c=='-';
+			if((neg||c=='+')&&++i==end)return false;
+			long limit=neg?Long.MIN_VALUE:-Long.MAX_VALUE,min=limit/10,r=0;
+			for(;i<end;i++){//使用负数累加，可以表示Long.MIN_VALUE
+				int d=digit(charAt(s,b,i),10);
+				if(d<0||r<min)return false;
+				r*=10;
+				if(r<limit+d)return false;
+				r-=d;
+			}
+			out[0]=neg?r:-r;
+			return true;
+		}
+		int shift=radix==16?4:1;
+		while(i<end-1&&charAt(s,b,i)=='0')i++;//跳过开头的零
+		if(end-i>64/shift)return false;
+		long r=0;
+		for(;i<end;i++){
+			int d=digit(charAt(s,b,i),radix);
+			if(d<0)return false;
+			r=r<<shift|d;
+		}
+		out[0]=r;
+		return true;
+	}
+
+	/**
+	 * 检测数组范围
+	 */
+	private static void checkRange(byte[]b,int off,int len){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * 解析字符串为长整数
+	 * 十进制为有符号数（可以以'+'或者'-'开头），二进制以及十六进制为无符号的64位数
+	 * （例如"ffffffffffffffff"为-1），十六进制不区分大小写，不支持"0x"前缀
+	 * <p>示例:</p>
+	 * <p>  tryParseLong("-123",0,4,10,out) = true (out[0]=-123)</p>
+	 * <p>  tryParseLong("1f",0,2,16,out) = true (out[0]=31)</p>
+	 * <p>  tryParseLong("12x",0,3,10,out) = false</p>
+	 * @param s 字符串
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @param radix 进制（2，10或者16）
+	 * @param out 解析成功时将结果写入out[0]
+	 * @return 是否解析成功（为空，包含无效字符或者溢出时失败）
+	 */
+	public static boolean tryParseLong(CharSequence s,int start,int end,int radix,long[]out){
+		return parse(s,null,start,end,radix,out);
+	}
+
+	/**
+	 * 解析ASCII字节为长整数
+	 * @see #tryParseLong(CharSequence,int,int,int,long[])
+	 * @param b 二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param radix 进制（2，10或者16）
+	 * @param out 解析成功时将结果写入out[0]
+	 * @return 是否解析成功
+	 */
+	public static boolean tryParseLong(byte[]b,int off,int len,int radix,long[]out){
+		checkRange(b,off,len);
+		return parse(null,b,off,off+len,radix,out);
+	}
+
+	/**
+	 * 解析字符串为长整数，失败时返回默认值
+	 * （注：使用当前线程的临时空间，不分配数组）
+	 * @see #tryParseLong(CharSequence,int,int,int,long[])
+	 * @param s 字符串
+	 * @param radix 进制（2，10或者16）
+	 * @param def 默认值
+	 * @return 长整数（失败时为def）
+	 */
+	public static long parseLong(CharSequence s,int radix,long def){
+		long[]out=SCRATCH.get();
+		return s!=null&&parse(s,null,0,s.length(),radix,out)?out[0]:def;
+	}
+
+	/**
+	 * 解析ASCII字节为长整数，失败时返回默认值
+	 * （注：使用当前线程的临时空间，不分配数组）
+	 * @see #tryParseLong(byte[],int,int,int,long[])
+	 * @param b 二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param radix 进制（2，10或者16）
+	 * @param def 默认值
+	 * @return 长整数（失败时为def）
+	 */
+	public static long parseLong(byte[]b,int off,int len,int radix,long def){
+		checkRange(b,off,len);
+		long[]out=SCRATCH.get();
+		return parse(null,b,off,off+len,radix,out)?out[0]:def;
+	}
+
+	/**
+	 * 检测长整数是否可以转为整数
+	 * 十进制为有符号的32位数，二进制以及十六进制为无符号的32位数
+	 */
+	private static boolean fitsInt(long v,int radix){
+		return radix==10?v==(int)v:v>>>32==0;
+	}
+
+	/**
+	 * 解析字符串或者ASCII字节为整数（字符串以及字节共用）
+	 * @return 解析结果（低32位）以及是否成功（第32位为1时成功）
+	 */
+	private static long parseInt(CharSequence s,byte[]b,int i,int end,int radix){
+		long[]v=SCRATCH.get();
+		if(!parse(s,b,i,end,radix,v)||!fitsInt(v[0],radix))return 0;
+		return 1L<<32|v[0]&0xFFFFFFFFL;
+	}
+
+	/**
+	 * 解析字符串为整数
+	 * 十进制为有符号数，二进制以及十六进制为无符号的32位数（例如"ffffffff"为-1）
+	 * @see #tryParseLong(CharSequence,int,int,int,long[])
+	 * @param s 字符串
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @param radix 进制（2，10或者16）
+	 * @param out 解析成功时将结果写入out[0]
+	 * @return 是否解析成功（为空，包含无效字符或者溢出时失败）
+	 */
+	public static boolean tryParseInt(CharSequence s,int start,int end,int radix,int[]out){
+		long r=parseInt(s,null,start,end,radix);
+		if(r==0)return false;
+		out[0]=(int)r;
+		return true;
+	}
+
+	/**
+	 * 解析ASCII字节为整数
+	 * @see #tryParseInt(CharSequence,int,int,int,int[])
+	 * @param b 二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param radix 进制（2，10或者16）
+	 * @param out 解析成功时将结果写入out[0]
+	 * @return 是否解析成功
+	 */
+	public static boolean tryParseInt(byte[]b,int off,int len,int radix,int[]out){
+		checkRange(b,off,len);
+		long r=parseInt(null,b,off,off+len,radix);
+		if(r==0)return false;
+		out[0]=(int)r;
+		return true;
+	}
+
+	/**
+	 * 解析字符串为整数，失败时返回默认值
+	 * @see #tryParseInt(CharSequence,int,int,int,int[])
+	 * @param s 字符串
+	 * @param radix 进制（2，10或者16）
+	 * @param def 默认值
+	 * @return 整数（失败时为def）
+	 */
+	public static int parseInt(CharSequence s,int radix,int def){
+		long r=s==null?0:parseInt(s,null,0,s.length(),radix);
+		return r==0?def:(int)r;
+	}
+
+	/**
+	 * 解析ASCII字节为整数，失败时返回默认值
+	 * @see #tryParseInt(byte[],int,int,int,int[])
+	 * @param b 二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @param radix 进制（2，10或者16）
+	 * @param def 默认值
+	 * @return 整数（失败时为def）
+	 */
+	public static int parseInt(byte[]b,int off,int len,int radix,int def){
+		checkRange(b,off,len);
+		long r=parseInt(null,b,off,off+len,radix);
+		return r==0?def:(int)r;
+	}
+
+	/**
+	 * 获取格式化后的长度
+	 * @param v 长整数
+	 * @param radix 进制（2，10或者16，二进制以及十六进制视为无符号数）
+	 * @return 字符数
+	 */
+	public static int formatLength(long v,int radix){
+		checkRadix(radix);
+		if(radix==2)return v==0?1:64-Long.numberOfLeadingZeros(v);
+		if(radix==16)return v==0?1:(67-Long.numberOfLeadingZeros(v))>>2;
+		int n=v<0?2:1;
+		for(long t=v<0?v:-v;t<=-10;t/=10)n++;
+		return n;
+	}
+
+	/**
+	 * 将长整数格式化到字符数组或者字节数组中（c不为null时写入c，否则写入b）
+	 * @return 写入的字符数
+	 */
+	private static int format(long v,int radix,char[]c,byte[]b,int off){
+		int n=formatLength(v,radix),p=off+n;
+		if(off<0||p>(c!=null?c.length:b.length))throw new IndexOutOfBoundsException("buffer too small");
+		if(radix==10){
+			long t=v<0?v:-v;//使用负数，可以表示Long.MIN_VALUE
+			do{
+				put(c,b,--p,(char)('0'-t%10));
+				t/=10;
+			}while(t!=0);
+			if(v<0)put(c,b,--p,'-');
+		}else{
+			int shift=radix==16?4:1,mask=radix-1;
+			do{
+				put(c,b,--p,HEX[(int)v&mask]);
+				v>>>=shift;
+			}while(v!=0);
+		}
+		return n;
+	}
+
+	private static void put(char[]c,byte[]b,int i,char v){
+		if(c!=null)c[i]=v;
+		else b[i]=(byte)v;
+	}
+
+	/**
+	 * 将长整数格式化到字符数组中
+	 * 十进制为有符号数，二进制以及十六进制为无符号数（小写）
+	 * <p>示例:</p>
+	 * <p>  format(-123,10,buf,0) = 4 (buf="-123")</p>
+	 * <p>  format(255,16,buf,0) = 2 (buf="ff")</p>
+	 * @param v 长整数
+	 * @param radix 进制（2，10或者16）
+	 * @param buf 输出目标
+	 * @param off 开始位置
+	 * @return 写入的字符数
+	 * @throws IndexOutOfBoundsException 空间不足
+	 */
+	public static int format(long v,int radix,char[]buf,int off){
+		return format(v,radix,requireNonNull(buf),null,off);
+	}
+
+	/**
+	 * 将长整数格式化为ASCII字节
+	 * @see #format(long,int,char[],int)
+	 * @param v 长整数
+	 * @param radix 进制（2，10或者16）
+	 * @param buf 输出目标
+	 * @param off 开始位置
+	 * @return 写入的字节数
+	 * @throws IndexOutOfBoundsException 空间不足
+	 */
+	public static int format(long v,int radix,byte[]buf,int off){
+		return format(v,radix,null,requireNonNull(buf),off);
+	}
+
+	/**
+	 * 将整数格式化到字符数组中
+	 * 十进制为有符号数，二进制以及十六进制为无符号的32位数
+	 * @see #format(long,int,char[],int)
+	 * @param v 整数
+	 * @param radix 进制（2，10或者16）
+	 * @param buf 输出目标
+	 * @param off 开始位置
+	 * @return 写入的字符数
+	 */
+	public static int format(int v,int radix,char[]buf,int off){
+		return format(radix==10?v:v&0xFFFFFFFFL,radix,buf,off);
+	}
+
+	/**
+	 * 将整数格式化为ASCII字节
+	 * @see #format(int,int,char[],int)
+	 * @param v 整数
+	 * @param radix 进制（2，10或者16）
+	 * @param buf 输出目标
+	 * @param off 开始位置
+	 * @return 写入的字节数
+	 */
+	public static int format(int v,int radix,byte[]buf,int off){
+		return format(radix==10?v:v&0xFFFFFFFFL,radix,buf,off);
+	}
 }
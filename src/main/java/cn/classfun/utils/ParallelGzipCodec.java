@@ -0,0 +1,108 @@
+package cn.classfun.utils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 并行压缩的gzip编码
+ * 按块读取输入，每一块在线程池中压缩为独立的gzip成员，然后按读取的顺序写入输出流。
+ * 同时压缩的块数不超过处理器数量的两倍，内存占用有上限
+ * @see StreamCodec#parallelGzip(int,int,Executor)
+ */
+final class ParallelGzipCodec implements StreamCodec{
+	private final int level;
+	private final int block_size;
+	private final Executor executor;
+	private final int window;//同时压缩的块数
+	private final DeflateCodec decoder;
+
+	ParallelGzipCodec(int level,int block_size,Executor executor){
+		if(block_size<=0)throw new IllegalArgumentException("block size must be positive");
+		this.level=DeflateCodec.checkLevel(level);
+		this.block_size=block_size;
+		this.executor=requireNonNull(executor);
+		this.window=Runtime.getRuntime().availableProcessors()*2;
+		this.decoder=new DeflateCodec(DeflateCodec.Format.GZIP,level);
+	}
+
+	/**
+	 * 读取直到填满数组或者到达结尾
+	 * @return 读取的字节数（已经到达结尾时为-1）
+	 */
+	private static int readFully(InputStream in,byte[]b,int len)throws IOException{
+		int off=0;
+		while(off<len){
+			int n=in.read(b,off,len-off);
+			if(n<0)return off==0?-1:off;
+			off+=n;
+		}
+		return off;
+	}
+
+	/**
+	 * 等待一块压缩完成并写入输出流
+	 */
+	private static long write(CompletableFuture<ByteArrayOutputStream>f,OutputStream out)throws IOException{
+		ByteArrayOutputStream b;
+		try{
+			b=f.join();
+		}catch(CompletionException e){
+			Throwable c=e.getCause();
+			if(c instanceof UncheckedIOException)throw ((UncheckedIOException)c).getCause();
+			if(c instanceof RuntimeException)throw (RuntimeException)c;
+			if(c instanceof Error)throw (Error)c;
+			throw e;
+		}
+		b.writeTo(out);
+		return b.size();
+	}
+
+	@Override
+	public long encode(InputStream in,OutputStream out,int buffer_size,BufferPool pool)throws IOException{
+		ArrayDeque<CompletableFuture<ByteArrayOutputStream>>queue=new ArrayDeque<>(window);
+		long total=0;
+		try{
+			for(boolean first=true;;first=false){
+				byte[]b=pool==null?new byte[block_size]:pool.acquire(block_size);
+				int n=readFully(in,b,block_size);
+				if(n<0&&!first){//输入为空时仍然写入一个空的成员
+					if(pool!=null)pool.release(b);
+					break;
+				}
+				int len=Math.max(n,0);
+				queue.add(CompletableFuture.supplyAsync(()->{
+					try{
+						return DeflateCodec.gzipMember(b,len,level,buffer_size,pool);
+					}catch(IOException e){
+						throw new UncheckedIOException(e);
+					}finally{
+						if(pool!=null)pool.release(b);
+					}
+				},executor));
+				if(queue.size()>=window)total+=write(queue.poll(),out);
+				if(n<block_size)break;
+			}
+			while(!queue.isEmpty())total+=write(queue.poll(),out);
+		}finally{
+			for(CompletableFuture<ByteArrayOutputStream>f:queue)f.cancel(false);
+		}
+		out.flush();
+		return total;
+	}
+
+	@Override
+	public long decode(InputStream in,OutputStream out,int buffer_size,BufferPool pool)throws IOException{
+		return decoder.decode(in,out,buffer_size,pool);
+	}
+
+	@Override
+	public String toString(){
+		return "ParallelGzipCodec{level="+level+",block_size="+block_size+"}";
+	}
+}
@@ -0,0 +1,56 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+/**
+ * 读取文件通道中指定范围的输入流
+ * 使用位置读取{@link FileChannel#read(ByteBuffer,long)}，不会修改通道的位置，
+ * 多个输入流可以同时读取同一个通道
+ * （注：关闭时不会关闭通道）
+ */
+final class RangeInputStream extends InputStream{
+	private final FileChannel channel;
+	private final long end;
+	private long pos;
+
+	/**
+	 * 创建范围输入流
+	 * @param channel 文件通道
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 */
+	RangeInputStream(FileChannel channel,long start,long end){
+		this.channel=channel;
+		this.pos=start;
+		this.end=end;
+	}
+
+	@Override
+	public int read(byte[]b,int off,int len)throws IOException{
+		if(len==0)return 0;
+		if(pos>=end)return -1;
+		int r=channel.read(ByteBuffer.wrap(b,off,(int)Math.min(len,end-pos)),pos);
+		if(r<0)return -1;
+		pos+=r;
+		return r;
+	}
+
+	@Override
+	public int read()throws IOException{
+		byte[]b=new byte[1];
+		return read(b,0,1)<0?-1:b[0]&0xFF;
+	}
+
+	@Override
+	public long skip(long n)throws IOException{
+		long s=Math.max(0,Math.min(n,end-pos));
+		pos+=s;
+		return s;
+	}
+
+	@Override
+	public int available(){
+		return (int)Math.min(Math.max(0,end-pos),Integer.MAX_VALUE);
+	}
+}
@@ -0,0 +1,203 @@
+package cn.classfun.utils;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 按分隔符逐条读取记录
+ * 每次只读取需要的部分，返回的记录是内部缓冲区的{@link CharSequence}视图，不会为每条记录创建字符串
+ * <p>示例:</p>
+ * <p>  try(RecordReader r=RecordReader.lines(reader)){</p>
+ * <p>    while(r.hasNext())process(r.next());</p>
+ * <p>  }</p>
+ * （注：返回的视图在下一次调用{@link #next()}或者{@link #hasNext()}后失效，需要保留时请调用{@link CharSequence#toString()}）
+ * （注：非线程安全）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class RecordReader implements Iterator<CharSequence>,Closeable{
+	public static final int DEFAULT_BUFFER_SIZE=8192;//默认缓冲区大小
+	public static final String LINE="\n";//行分隔符
+	private final Reader in;
+	private final String delimiter;
+	private final boolean strip_cr;
+	private char[]buf;
+	private CharBuffer view;
+	private int start=0,end=0;//缓冲区中未处理的部分
+	private int scan=0;//继续查找分隔符的位置
+	private int rec_start,rec_end;//已找到的记录
+	private boolean eof=false,ready=false,done=false;
+
+	/**
+	 * 创建记录读取器
+	 * @param in 输入（读取来源）
+	 * @param delimiter 记录分隔符（不能为空，并且不能与自身重叠，例如"aa"）
+	 * @param strip_cr 是否去除记录结尾的'\r'
+	 * @param buffer_size 初始缓冲区大小（记录超过该大小时自动扩大）
+	 */
+	public RecordReader(Reader in,String delimiter,boolean strip_cr,int buffer_size){
+		if(delimiter==null||delimiter.isEmpty())throw new IllegalArgumentException("delimiter must not be empty");
+		if(buffer_size<=0)throw new IllegalArgumentException("buffer size must be positive");
+		this.in=requireNonNull(in);
+		this.delimiter=delimiter;
+		this.strip_cr=strip_cr;
+		this.buf=new char[Math.max(buffer_size,delimiter.length()*2)];
+		this.view=CharBuffer.wrap(buf);
+	}
+
+	/**
+	 * 创建记录读取器
+	 * 实际调用{@link #RecordReader(Reader,String,boolean,int)}
+	 * （注：不去除'\r'，使用默认缓冲区大小{@link #DEFAULT_BUFFER_SIZE}）
+	 * @param in 输入（读取来源）
+	 * @param delimiter 记录分隔符（不能为空）
+	 */
+	public RecordReader(Reader in,String delimiter){
+		this(in,delimiter,false,DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 创建按行读取的读取器
+	 * 以'\n'分隔，并且去除行结尾的'\r'
+	 * @param in 输入（读取来源）
+	 * @return 记录读取器
+	 */
+	public static RecordReader lines(Reader in){
+		return new RecordReader(in,LINE,true,DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 在缓冲区中查找分隔符
+	 * @return 分隔符的位置（找不到时为-1）
+	 */
+	private int find(){
+		int dl=delimiter.length();
+		char f=delimiter.charAt(0);
+		outer:for(int i=scan;i<=end-dl;i++){
+			if(buf[i]!=f)continue;
+			for(int j=1;j<dl;j++)if(buf[i+j]!=delimiter.charAt(j))continue outer;
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 读取更多数据到缓冲区中
+	 * 先将未处理的部分移动到开头，缓冲区已满时扩大
+	 * @throws IOException 读取失败
+	 */
+	private void fill()throws IOException{
+		if(start>0){
+			System.arraycopy(buf,start,buf,0,end-start);
+			scan-=start;
+			end-=start;
+			start=0;
+		}
+		if(end==buf.length){
+			buf=Arrays.copyOf(buf,buf.length*2);
+			view=CharBuffer.wrap(buf);
+		}
+		int n=in.read(buf,end,buf.length-end);
+		if(n<0)eof=true;//小于0时说明到达了结尾
+		else end+=n;
+	}
+
+	/**
+	 * 查找下一条记录
+	 * @return 是否找到
+	 * @throws IOException 读取失败
+	 */
+	private boolean advance()throws IOException{
+		for(;;){
+			int p=find();
+			if(p>=0){
+				rec_start=start;
+				rec_end=p;
+				start=scan=p+delimiter.length();
+				break;
+			}
+			scan=Math.max(start,end-delimiter.length()+1);//分隔符可能被截断，保留末尾部分
+			if(eof){
+				if(start>=end)return false;
+				rec_start=start;
+				rec_end=end;
+				start=scan=end;
+				break;
+			}
+			fill();
+		}
+		if(strip_cr&&rec_end>rec_start&&buf[rec_end-1]=='\r')rec_end--;
+		return true;
+	}
+
+	/**
+	 * 是否还有下一条记录
+	 * （注：读取失败时抛出{@link UncheckedIOException}）
+	 * @return 是否还有下一条记录
+	 */
+	@Override
+	public boolean hasNext(){
+		if(!ready&&!done){
+			try{ready=advance();}
+			catch(IOException e){throw new UncheckedIOException(e);}
+			done=!ready;
+		}
+		return ready;
+	}
+
+	/**
+	 * 读取下一条记录
+	 * （注：返回的视图在下一次读取后失效）
+	 * @return 记录的视图（不包含分隔符）
+	 */
+	@Override
+	public CharSequence next(){
+		if(!hasNext())throw new NoSuchElementException();
+		ready=false;
+		((Buffer)view).clear();
+		((Buffer)view).limit(rec_end).position(rec_start);
+		return view;
+	}
+
+	/**
+	 * 读取下一条记录为字符串
+	 * @return 记录（不包含分隔符）
+	 */
+	public String nextString(){
+		return next().toString();
+	}
+
+	/**
+	 * 转换为顺序流
+	 * （注：关闭流时同时关闭读取器，流中的元素在处理下一条记录后失效）
+	 * @return 记录的流
+	 */
+	public Stream<CharSequence> stream(){
+		return StreamSupport.stream(
+			Spliterators.spliteratorUnknownSize(this,Spliterator.ORDERED|Spliterator.NONNULL),false
+		).onClose(()->{
+			try{close();}
+			catch(IOException e){throw new UncheckedIOException(e);}
+		});
+	}
+
+	/**
+	 * 关闭输入
+	 * @throws IOException 关闭失败
+	 */
+	@Override
+	public void close()throws IOException{
+		done=true;
+		ready=false;
+		in.close();
+	}
+}
@@ -0,0 +1,123 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+/**
+ * 按记录分割文件的{@link Spliterator}
+ * 分割时在字节范围的中点之后查找分隔符，保证每一部分都从记录的开头开始，
+ * 可以在并行流中由多个线程同时处理同一个文件
+ * （注：只有UTF-8、US-ASCII和ISO-8859-1可以分割，其他字符集按顺序处理）
+ */
+final class RecordSpliterator implements Spliterator<CharSequence>{
+	static final long MIN_SPLIT_SIZE=1<<20;//小于该大小时不再分割
+	private final FileChannel channel;
+	private final Charset charset;
+	private final String delimiter;
+	private final byte[]pattern;
+	private final boolean strip_cr;
+	private long start;
+	private final long end;
+	private RecordReader reader;
+
+	/**
+	 * 创建分割器
+	 * @param channel 文件通道（多个分割器共享，需要由调用者关闭）
+	 * @param charset 使用的字符集
+	 * @param delimiter 记录分隔符
+	 * @param strip_cr 是否去除记录结尾的'\r'
+	 * @param start 开始位置（必须是记录的开头）
+	 * @param end 结束位置（不包含）
+	 */
+	RecordSpliterator(FileChannel channel,Charset charset,String delimiter,boolean strip_cr,long start,long end){
+		this.channel=channel;
+		this.charset=charset;
+		this.delimiter=delimiter;
+		this.strip_cr=strip_cr;
+		this.start=start;
+		this.end=end;
+		this.pattern=splittable(charset)?delimiter.getBytes(charset):null;
+	}
+
+	/**
+	 * 判断字符集是否可以在任意分隔符的位置分割
+	 * @param charset 字符集
+	 * @return 是否可以分割
+	 */
+	private static boolean splittable(Charset charset){
+		return charset.equals(StandardCharsets.UTF_8)||
+			charset.equals(StandardCharsets.US_ASCII)||
+			charset.equals(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * 从指定位置开始查找下一条记录的开头
+	 * @param channel 文件通道
+	 * @param pattern 分隔符的字节（不能与自身重叠）
+	 * @param from 开始查找的位置
+	 * @param end 结束查找的位置（不包含）
+	 * @return 下一条记录的开头（找不到时为-1）
+	 * @throws IOException 读取失败
+	 */
+	static long boundary(FileChannel channel,byte[]pattern,long from,long end)throws IOException{
+		ByteBuffer b=ByteBuffer.allocate(8192);
+		int pl=pattern.length,matched=0;
+		long pos=from;
+		while(pos<end){
+			((Buffer)b).clear();
+			((Buffer)b).limit((int)Math.min(b.capacity(),end-pos));
+			int r=channel.read(b,pos);
+			if(r<=0)break;
+			for(int i=0;i<r;i++){
+				byte c=b.get(i);
+				if(c==pattern[matched]){
+					if(++matched==pl)return pos+i+1;
+				}else if(matched>0){
+					matched=c==pattern[0]?1:0;
+					if(matched==pl)return pos+i+1;
+				}
+			}
+			pos+=r;
+		}
+		return -1;
+	}
+
+	@Override
+	public Spliterator<CharSequence> trySplit(){
+		if(reader!=null||pattern==null||end-start<MIN_SPLIT_SIZE*2)return null;
+		long mid;
+		try{mid=boundary(channel,pattern,start+(end-start)/2,end);}
+		catch(IOException e){throw new UncheckedIOException(e);}
+		if(mid<0||mid>=end)return null;
+		RecordSpliterator prefix=new RecordSpliterator(channel,charset,delimiter,strip_cr,start,mid);
+		start=mid;
+		return prefix;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super CharSequence>action){
+		if(reader==null)reader=new RecordReader(
+			new InputStreamReader(new RangeInputStream(channel,start,end),charset),
+			delimiter,strip_cr,RecordReader.DEFAULT_BUFFER_SIZE
+		);
+		if(!reader.hasNext())return false;
+		action.accept(reader.next());
+		return true;
+	}
+
+	@Override
+	public long estimateSize(){
+		return end-start;//按字节数估计
+	}
+
+	@Override
+	public int characteristics(){
+		return ORDERED|NONNULL;
+	}
+}
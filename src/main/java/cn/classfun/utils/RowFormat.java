@@ -0,0 +1,123 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 多列固定宽度的行格式
+ * 每一列的宽度为正数时右对齐（在左侧填充），为负数时左对齐（在右侧填充），
+ * 与{@link java.util.Formatter}的"%10s"以及"%-10s"相同。
+ * 整行写入同一个缓冲区，不为每一列创建中间字符串
+ * <p>示例:</p>
+ * <p>  new RowFormat(" | ",' ',-6,4).format("abc","12") = "abc    |   12"</p>
+ * （注：内容超过列宽时不截断，不可修改，可以在多个线程中使用）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class RowFormat{
+	private final int[]widths;
+	private final char pad;
+	private final String separator;
+	private final int width;
+
+	/**
+	 * 创建行格式
+	 * @param separator 列之间的分隔符
+	 * @param pad 填充字符
+	 * @param widths 每一列的宽度（正数右对齐，负数左对齐）
+	 */
+	public RowFormat(String separator,char pad,int...widths){
+		if(requireNonNull(widths).length==0)throw new IllegalArgumentException("widths must not be empty");
+		this.widths=widths.clone();
+		this.pad=pad;
+		this.separator=requireNonNull(separator);
+		int w=separator.length()*(widths.length-1);
+		for(int c:widths)w+=Math.abs(c);
+		this.width=w;
+	}
+
+	/**
+	 * 创建行格式（使用空格填充以及分隔）
+	 * @param widths 每一列的宽度（正数右对齐，负数左对齐）
+	 */
+	public RowFormat(int...widths){
+		this(" ",' ',widths);
+	}
+
+	/**
+	 * 获取列数
+	 * @return 列数
+	 */
+	public int columns(){return widths.length;}
+
+	/**
+	 * 获取内容不超过列宽时一行的长度
+	 * @return 一行的长度
+	 */
+	public int width(){return width;}
+
+	/**
+	 * 写入一列（宽度为正数时右对齐，负数时左对齐）
+	 * （注：与{@link StringUtils#padLeft(StringBuilder,CharSequence,char,int)}不同，空的列也会填充到列宽）
+	 */
+	private void cell(StringBuilder sb,CharSequence c,int w){
+		int n=c==null?0:c.length();
+		if(w>=0)StringUtils.repeat(sb,pad,w-n);
+		if(n>0)sb.append(c);
+		if(w<0)StringUtils.repeat(sb,pad,-w-n);
+	}
+
+	/**
+	 * 写入一列
+	 * @see #cell(StringBuilder,CharSequence,int)
+	 */
+	private void cell(Appendable out,CharSequence c,int w)throws IOException{
+		int n=c==null?0:c.length();
+		if(w>=0)StringUtils.repeat(out,pad,w-n);
+		if(n>0)out.append(c);
+		if(w<0)StringUtils.repeat(out,pad,-w-n);
+	}
+
+	/**
+	 * 将一行追加到sb中
+	 * （注：不包含换行符，少于列数时其余的列为空，null视为空字符串）
+	 * @param sb 输出目标
+	 * @param cells 每一列的内容
+	 * @return sb
+	 */
+	public StringBuilder format(StringBuilder sb,CharSequence...cells){
+		if(cells.length>widths.length)throw new IllegalArgumentException("too many cells: "+cells.length);
+		sb.ensureCapacity(sb.length()+width);
+		for(int i=0;i<widths.length;i++){
+			if(i>0)sb.append(separator);
+			cell(sb,i<cells.length?cells[i]:null,widths[i]);
+		}
+		return sb;
+	}
+
+	/**
+	 * 将一行写入out中
+	 * @see #format(StringBuilder,CharSequence...)
+	 * @param out 输出目标
+	 * @param cells 每一列的内容
+	 * @throws IOException 写入失败
+	 */
+	public void format(Appendable out,CharSequence...cells)throws IOException{
+		if(out instanceof StringBuilder){
+			format((StringBuilder)out,cells);
+			return;
+		}
+		if(cells.length>widths.length)throw new IllegalArgumentException("too many cells: "+cells.length);
+		for(int i=0;i<widths.length;i++){
+			if(i>0)out.append(separator);
+			cell(out,i<cells.length?cells[i]:null,widths[i]);
+		}
+	}
+
+	/**
+	 * 将一行格式化为字符串
+	 * @see #format(StringBuilder,CharSequence...)
+	 * @param cells 每一列的内容
+	 * @return 一行（不包含换行符）
+	 */
+	public String format(CharSequence...cells){
+		return format(new StringBuilder(width),cells).toString();
+	}
+}
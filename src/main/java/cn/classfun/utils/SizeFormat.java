@@ -0,0 +1,331 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 预编译的存储容量格式
+ * 输出与{@link String#format(String,Object...)}使用"%.Nf%s"完全相同（包括默认区域的小数点），
+ * 但不需要解析格式字符串，也不会创建{@link java.util.Formatter}。
+ * 每一级单位的大小为2的幂次（例如1024）时使用位运算选择单位。
+ * 同时提供相反的解析（{@link #parse(CharSequence)}），可以解析format的输出
+ * （注：不可修改，可以在多个线程中使用）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class SizeFormat{
+	private static final long[]POW10={1L,10L,100L,1000L,10000L,100000L,1000000L,10000000L,100000000L,1000000000L};
+	private static final double EXACT_LIMIT=1L<<50;//小于该值时double的小数部分足够精确
+	private static final int CACHED_DOTS=POW10.length;
+	private static final int MAX_FRACTION=18;//解析时保留的小数位数
+	private static final long[]POW10_18=new long[MAX_FRACTION+1];
+	private static final String IEC_PREFIX="KMGTPEZY";//IEC单位的前缀（KiB、MiB等，每一级为1024）
+	private static final SizeFormat[]CACHE_1024=new SizeFormat[CACHED_DOTS];
+	private static final SizeFormat[]CACHE_1000=new SizeFormat[CACHED_DOTS];
+	private static volatile Symbols symbols=new Symbols(Locale.getDefault(Locale.Category.FORMAT));
+	private final int step;
+	private final int dot;
+	private final String[]units;
+	private final int shift;//step为2的幂次时的位数，否则为0
+
+	static{
+		POW10_18[0]=1;
+		for(int i=1;i<=MAX_FRACTION;i++)POW10_18[i]=POW10_18[i-1]*10;
+		for(int i=0;i<CACHED_DOTS;i++){
+			CACHE_1024[i]=new SizeFormat(1024,i,StringUtils.units);
+			CACHE_1000[i]=new SizeFormat(1000,i,StringUtils.units);
+		}
+	}
+
+	/**
+	 * 区域相关的符号
+	 */
+	private static final class Symbols{
+		final Locale locale;
+		final char decimal;
+		final char zero;
+		Symbols(Locale locale){
+			DecimalFormatSymbols s=DecimalFormatSymbols.getInstance(locale);
+			this.locale=locale;
+			this.decimal=s.getDecimalSeparator();
+			this.zero=s.getZeroDigit();
+		}
+	}
+
+	/**
+	 * 创建存储容量格式
+	 * @param step 每一级单位的大小（可以为1024或者1000）
+	 * @param dot 保留小数点后的位数 （小于0时视为0）
+	 * @param units 单位名称
+	 */
+	public SizeFormat(int step,int dot,String[]units){
+		if(requireNonNull(units).length==0)throw new IllegalArgumentException("units must not be empty");
+		this.step=step;
+		this.dot=Math.max(dot,0);
+		this.units=units;
+		this.shift=step>1&&Integer.bitCount(step)==1?Integer.numberOfTrailingZeros(step):0;
+	}
+
+	/**
+	 * 获取存储容量格式
+	 * 使用默认单位{@link StringUtils#units}并且step为1024或者1000时返回预先创建的实例
+	 * @param step 每一级单位的大小（可以为1024或者1000）
+	 * @param dot 保留小数点后的位数 （小于0时视为0）
+	 * @param units 单位名称
+	 * @return 存储容量格式
+	 */
+	public static SizeFormat of(int step,int dot,String[]units){
+		if(dot<0)dot=0;
+		if(units==StringUtils.units&&dot<CACHED_DOTS){
+			if(step==1024)return CACHE_1024[dot];
+			if(step==1000)return CACHE_1000[dot];
+		}
+		return new SizeFormat(step,dot,units);
+	}
+
+	/**
+	 * 获取当前默认区域的符号
+	 * @return 符号
+	 */
+	private static Symbols symbols(){
+		Symbols s=symbols;
+		Locale l=Locale.getDefault(Locale.Category.FORMAT);
+		if(s.locale!=l)symbols=s=new Symbols(l);
+		return s;
+	}
+
+	/**
+	 * 写入非负整数
+	 * @param sb 输出目标
+	 * @param v 非负整数
+	 * @param width 最少的位数（不足时补零）
+	 * @param zero 零的字符
+	 */
+	private static void appendDigits(StringBuilder sb,long v,int width,char zero){
+		int n=1;
+		for(long t=v;t>=10;t/=10)n++;
+		if(n<width)n=width;
+		int end=sb.length()+n;
+		sb.setLength(end);
+		for(int i=end-1;i>=end-n;i--){
+			sb.setCharAt(i,(char)(zero+(int)(v%10)));
+			v/=10;
+		}
+	}
+
+	/**
+	 * 将字节数转成可读的带单位字符串，追加到sb中
+	 * @param size 原字节数（长整数）
+	 * @param sb 输出目标
+	 * @return sb
+	 */
+	public StringBuilder format(long size,StringBuilder sb){
+		double value=size;
+		String unit;
+		if(shift>0){//2的幂次，使用指数直接计算除法的次数
+			int d=value<step?0:Math.min(Math.getExponent(value)/shift,units.length);
+			unit=units[Math.min(d,units.length-1)];
+			value=Math.scalb(value,-shift*d);
+		}else{
+			unit=units[0];
+			for(String s:units){
+				unit=s;
+				if(value<step)break;
+				value/=step;
+			}
+		}
+		double abs=Math.abs(value);
+		if(dot<CACHED_DOTS&&abs<EXACT_LIMIT/POW10[dot]){
+			double scaled=abs*POW10[dot];
+			double frac=scaled-Math.floor(scaled);
+			if(Math.abs(frac-0.5)>Math.ulp(scaled)*4){//不在四舍五入的边界附近，结果与Formatter相同
+				long r=(long)Math.floor(scaled+0.5);
+				Symbols sym=symbols();
+				if(value<0)sb.append('-');
+				appendDigits(sb,r/POW10[dot],1,sym.zero);
+				if(dot>0){
+					sb.append(sym.decimal);
+					appendDigits(sb,r%POW10[dot],dot,sym.zero);
+				}
+				return sb.append(unit);
+			}
+		}
+		return sb.append(String.format("%."+dot+"f%s",value,unit));
+	}
+
+	/**
+	 * 将字节数转成可读的带单位字符串，追加到out中
+	 * @param size 原字节数（长整数）
+	 * @param out 输出目标
+	 * @throws IOException 写入失败
+	 */
+	public void format(long size,Appendable out)throws IOException{
+		if(out instanceof StringBuilder){
+			format(size,(StringBuilder)out);
+			return;
+		}
+		StringBuilder sb=new StringBuilder(24);
+		out.append(format(size,sb));
+	}
+
+	/**
+	 * 将字节数转成可读的带单位字符串
+	 * @param size 原字节数（长整数）
+	 * @return 可读的字符串
+	 */
+	public String format(long size){
+		return format(size,new StringBuilder(24)).toString();
+	}
+
+	/**
+	 * 比较字符串的一部分与单位（忽略大小写）
+	 * @param s 字符串
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @param unit 单位
+	 * @param len 比较单位的前len个字符
+	 * @return 是否相同
+	 */
+	private static boolean unitEquals(CharSequence s,int start,int end,String unit,int len){
+		if(end-start!=len)return false;
+		for(int i=0;i<len;i++){
+			char a=s.charAt(start+i),b=unit.charAt(i);
+			if(a!=b&&Character.toUpperCase(a)!=Character.toUpperCase(b))return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 计算base的exp次方
+	 * @return 结果（溢出时为-1）
+	 */
+	private static long pow(long base,int exp){
+		long r=1;
+		for(int i=0;i<exp;i++){
+			if(r>Long.MAX_VALUE/base)return -1;
+			r*=base;
+		}
+		return r;
+	}
+
+	/**
+	 * 查找单位对应的倍数
+	 * 依次尝试：空单位（字节），units中的单位，去掉结尾'B'的单位（例如"M"），IEC单位（例如"MiB"）
+	 * @return 倍数（找不到时为0，溢出时为-1）
+	 */
+	private long multiplier(CharSequence s,int start,int end){
+		if(start==end)return 1;
+		for(int i=0;i<units.length;i++)
+			if(unitEquals(s,start,end,units[i],units[i].length()))return pow(step,i);
+		for(int i=1;i<units.length;i++){
+			String u=units[i];
+			int l=u.length()-1;
+			if(l>0&&(u.charAt(l)=='B'||u.charAt(l)=='b')&&unitEquals(s,start,end,u,l))return pow(step,i);
+		}
+		if(end-start==3&&(s.charAt(start+1)|0x20)=='i'&&(s.charAt(start+2)|0x20)=='b'){
+			int p=IEC_PREFIX.indexOf(Character.toUpperCase(s.charAt(start)));
+			if(p>=0)return pow(1024,p+1);
+		}
+		return 0;
+	}
+
+	/**
+	 * 计算a*b/d（128位中间结果，不会溢出）
+	 * （注：a,b非负，并且a小于d）
+	 * @param a 被乘数
+	 * @param b 乘数
+	 * @param d 除数
+	 * @return 四舍五入后的商
+	 */
+	private static long mulDivRound(long a,long b,long d){
+		final long M=0xFFFFFFFFL;
+		long a1=a>>>32,a0=a&M,b1=b>>>32,b0=b&M;
+		long p00=a0*b0,p01=a0*b1,p10=a1*b0,p11=a1*b1;
+		long mid=(p00>>>32)+(p01&M)+(p10&M);
+		long hi=p11+(p01>>>32)+(p10>>>32)+(mid>>>32);
+		long lo=mid<<32|p00&M;
+		long q=0,r=hi;//hi小于d，商不会超过64位
+		for(int i=63;i>=0;i--){
+			boolean carry=r<0;
+			r=r<<1|lo>>>i&1;
+			q<<=1;
+			if(carry||Long.compareUnsigned(r,d)>=0){
+				r-=d;
+				q|=1;
+			}
+		}
+		return Long.compareUnsigned(r,d-r)>=0?q+1:q;
+	}
+
+	/**
+	 * 解析带单位的存储容量
+	 * 格式为：[空白][+|-]数字[小数点数字][空白][单位][空白]，单位忽略大小写，
+	 * 小数点可以为'.'或者默认区域的小数点，小数部分精确计算（四舍五入到字节）
+	 * <p>示例:</p>
+	 * <p>  parse("1.50KB")=1536</p>
+	 * <p>  parse("512 KiB")=524288</p>
+	 * <p>  parse("10m")=10485760</p>
+	 * （注：小数部分最多保留18位，超出的部分被舍去）
+	 * @param s 字符串
+	 * @param start 开始位置
+	 * @param end 结束位置（不包含）
+	 * @return 字节数
+	 * @throws NumberFormatException 格式错误，单位无效或者溢出
+	 */
+	public long parse(CharSequence s,int start,int end){
+		int i=start;
+		while(i<end&&Character.isWhitespace(s.charAt(i)))i++;
+		while(end>i&&Character.isWhitespace(s.charAt(end-1)))end--;
+		boolean neg=false;
+		if(i<end&&(s.charAt(i)=='-'||s.charAt(i)=='+'))neg=s.charAt(i++)=='-';
+		char decimal=symbols().decimal;
+		long ip=0,fp=0;
+		int digits=0,fd=0;
+		boolean overflow=false,fraction=false;
+		for(;i<end;i++){
+			char c=s.charAt(i);
+			if(!fraction&&(c=='.'||c==decimal)){
+				fraction=true;
+				continue;
+			}
+			int d=Character.digit(c,10);
+			if(d<0)break;
+			digits++;
+			if(fraction){
+				if(fd<MAX_FRACTION){
+					fp=fp*10+d;
+					fd++;
+				}
+			}else if(ip>(Long.MAX_VALUE-d)/10)overflow=true;
+			else ip=ip*10+d;
+		}
+		if(digits==0)throw new NumberFormatException("invalid size: \""+s.subSequence(start,end)+"\"");
+		while(i<end&&Character.isWhitespace(s.charAt(i)))i++;
+		long mul=multiplier(s,i,end);
+		if(mul==0)throw new NumberFormatException("unknown size unit: \""+s.subSequence(i,end)+"\"");
+		long value=0;
+		if(ip!=0||fp!=0){
+			if(overflow||mul<0||ip>Long.MAX_VALUE/mul)overflow=true;
+			else{
+				value=ip*mul;
+				if(fp!=0){
+					long f=mulDivRound(fp,mul,POW10_18[fd]);
+					if(value>Long.MAX_VALUE-f)overflow=true;
+					else value+=f;
+				}
+			}
+		}
+		if(overflow)throw new NumberFormatException("size out of range: \""+s.subSequence(start,end)+"\"");
+		return neg?-value:value;
+	}
+
+	/**
+	 * 解析带单位的存储容量
+	 * 实际调用{@link #parse(CharSequence,int,int)}
+	 * @param s 字符串
+	 * @return 字节数
+	 * @throws NumberFormatException 格式错误，单位无效或者溢出
+	 */
+	public long parse(CharSequence s){
+		return parse(s,0,s.length());
+	}
+}
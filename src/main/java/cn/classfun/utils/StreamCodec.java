@@ -0,0 +1,109 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+/**
+ * 流的编码以及解码（例如压缩以及解压）
+ * 直接在输入流与输出流之间处理，不需要再包装一层{@link java.util.zip.GZIPOutputStream}等流，
+ * 可以在{@link StreamUtils#stream2compressed}以及{@link StreamUtils#compressed2stream}中使用
+ * <p>示例:</p>
+ * <p>  StreamUtils.stream2compressed(in,out,StreamCodec.gzip(6),65536,true);</p>
+ * <p>  StreamUtils.compressed2stream(in,out,StreamCodec.gzip(),65536,true);</p>
+ * （注：实现需要可以在多个线程中同时使用）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public interface StreamCodec{
+	int DEFAULT_BLOCK_SIZE=1<<20;//并行压缩时默认每一块的大小
+
+	/**
+	 * 将输入流编码后写入输出流
+	 * （注：不会关闭输入流以及输出流，完成后会清空输出流的缓冲区）
+	 * @param in 输入流（原始数据）
+	 * @param out 输出流（编码后的数据）
+	 * @param buffer_size 缓冲区的大小
+	 * @param pool 缓冲区池（为null时直接分配）
+	 * @return 写入输出流的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	long encode(InputStream in,OutputStream out,int buffer_size,BufferPool pool)throws IOException;
+
+	/**
+	 * 将输入流解码后写入输出流
+	 * （注：不会关闭输入流以及输出流，完成后会清空输出流的缓冲区）
+	 * @param in 输入流（编码后的数据）
+	 * @param out 输出流（原始数据）
+	 * @param buffer_size 缓冲区的大小
+	 * @param pool 缓冲区池（为null时直接分配）
+	 * @return 写入输出流的字节数
+	 * @throws IOException 读取或者写入失败，或者数据格式错误（{@link java.util.zip.ZipException}）
+	 */
+	long decode(InputStream in,OutputStream out,int buffer_size,BufferPool pool)throws IOException;
+
+	/**
+	 * gzip格式（RFC 1952）
+	 * 每个线程重复使用同一个{@link Deflater}以及{@link java.util.zip.Inflater}，
+	 * 解码时支持多个连续的gzip成员（例如pigz或者{@link #parallelGzip}的输出）
+	 * @param level 压缩等级（0-9，或者{@link Deflater#DEFAULT_COMPRESSION}）
+	 * @return 编码
+	 */
+	static StreamCodec gzip(int level){
+		return new DeflateCodec(DeflateCodec.Format.GZIP,level);
+	}
+
+	/**
+	 * gzip格式（默认压缩等级）
+	 * 实际调用{@link #gzip(int)}
+	 * @return 编码
+	 */
+	static StreamCodec gzip(){
+		return gzip(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * deflate格式
+	 * 每个线程重复使用同一个{@link Deflater}以及{@link java.util.zip.Inflater}
+	 * @param level 压缩等级（0-9，或者{@link Deflater#DEFAULT_COMPRESSION}）
+	 * @param nowrap 为true时不包含zlib头部以及校验和（RFC 1951），否则为zlib格式（RFC 1950）
+	 * @return 编码
+	 */
+	static StreamCodec deflate(int level,boolean nowrap){
+		return new DeflateCodec(nowrap?DeflateCodec.Format.RAW:DeflateCodec.Format.ZLIB,level);
+	}
+
+	/**
+	 * zlib格式（默认压缩等级）
+	 * 实际调用{@link #deflate(int,boolean)}
+	 * @return 编码
+	 */
+	static StreamCodec deflate(){
+		return deflate(Deflater.DEFAULT_COMPRESSION,false);
+	}
+
+	/**
+	 * 并行压缩的gzip格式
+	 * 与pigz相同，将输入按块分割后在多个线程中同时压缩，每一块为一个独立的gzip成员并按顺序写入，
+	 * 结果可以由任何gzip解码器（包括{@link java.util.zip.GZIPInputStream}）解码
+	 * （注：每一块单独压缩，压缩率略低于{@link #gzip(int)}，解码仍然在当前线程中进行）
+	 * @param level 压缩等级（0-9，或者{@link Deflater#DEFAULT_COMPRESSION}）
+	 * @param block_size 每一块的大小
+	 * @param executor 执行压缩的线程池
+	 * @return 编码
+	 */
+	static StreamCodec parallelGzip(int level,int block_size,Executor executor){
+		return new ParallelGzipCodec(level,block_size,executor);
+	}
+
+	/**
+	 * 并行压缩的gzip格式
+	 * 实际调用{@link #parallelGzip(int,int,Executor)}
+	 * （注：每一块的大小为{@link #DEFAULT_BLOCK_SIZE}，使用{@link ForkJoinPool#commonPool()}）
+	 * @param level 压缩等级（0-9，或者{@link Deflater#DEFAULT_COMPRESSION}）
+	 * @return 编码
+	 */
+	static StreamCodec parallelGzip(int level){
+		return parallelGzip(level,DEFAULT_BLOCK_SIZE,ForkJoinPool.commonPool());
+	}
+}
@@ -0,0 +1,207 @@
+package cn.classfun.utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
+/**
+ * 输入流字符解码器
+ * 使用一对可重复使用的{@link ByteBuffer}和{@link CharBuffer}逐块解码输入流，
+ * 直接输出到{@link Appendable}中，不需要先读取成完整的二进制数组。
+ * 对ASCII、ISO-8859-1以及UTF-8中的ASCII部分直接转换，不经过{@link CharsetDecoder}
+ * （注：非线程安全，可以通过{@link #get(Charset,CodingErrorAction)}获取当前线程的实例）
+ */
+@SuppressWarnings({"unused","RedundantSuppression"})
+public final class StreamDecoder{
+	public static final int DEFAULT_BUFFER_SIZE=8192;//默认缓冲区大小
+	private static final int FAST_NONE=0,FAST_ASCII=1,FAST_LATIN1=2;
+	private static final ThreadLocal<StreamDecoder>cached=new ThreadLocal<>();
+	private final Charset charset;
+	private final CodingErrorAction action;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer bytes;
+	private final CharBuffer chars;
+	private final int fast;
+	private boolean busy=false;
+
+	/**
+	 * 创建解码器
+	 * @param charset 使用的字符集
+	 * @param action 遇到无效或者无法映射的输入时的处理方式
+	 *               （{@link CodingErrorAction#REPORT}时抛出{@link java.nio.charset.CharacterCodingException}）
+	 * @param buffer_size 缓冲区大小
+	 */
+	public StreamDecoder(Charset charset,CodingErrorAction action,int buffer_size){
+		if(buffer_size<16)throw new IllegalArgumentException("buffer size too small");
+		this.charset=requireNonNull(charset);
+		this.action=requireNonNull(action);
+		this.decoder=charset.newDecoder().onMalformedInput(action).onUnmappableCharacter(action);
+		this.bytes=ByteBuffer.allocate(buffer_size);
+		this.chars=CharBuffer.allocate(Math.max(2,(int)(buffer_size*decoder.maxCharsPerByte())));
+		if(charset.equals(StandardCharsets.ISO_8859_1))fast=FAST_LATIN1;
+		else if(charset.equals(StandardCharsets.US_ASCII)||charset.equals(StandardCharsets.UTF_8))fast=FAST_ASCII;
+		else fast=FAST_NONE;
+	}
+
+	/**
+	 * 创建解码器
+	 * （注：无效的输入会被替换，与{@link String#String(byte[],Charset)}相同）
+	 * @param charset 使用的字符集
+	 */
+	public StreamDecoder(Charset charset){
+		this(charset,CodingErrorAction.REPLACE,DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 获取当前线程缓存的解码器
+	 * 字符集和处理方式相同并且没有正在使用时重复使用，否则创建新的解码器
+	 * @param charset 使用的字符集
+	 * @param action 遇到无效或者无法映射的输入时的处理方式
+	 * @return 解码器
+	 */
+	public static StreamDecoder get(Charset charset,CodingErrorAction action){
+		StreamDecoder d=cached.get();
+		if(d!=null&&!d.busy&&d.charset.equals(charset)&&d.action==action)return d;
+		d=new StreamDecoder(charset,action,DEFAULT_BUFFER_SIZE);
+		cached.set(d);
+		return d;
+	}
+
+	/**
+	 * 获取使用的字符集
+	 * @return 字符集
+	 */
+	public Charset charset(){return charset;}
+
+	/**
+	 * 直接转换缓冲区开头的单字节字符
+	 * @return 转换的字符数
+	 */
+	private int fastDecode(){
+		if(fast==FAST_NONE)return 0;
+		byte[]b=bytes.array();
+		char[]c=chars.array();
+		int bp=bytes.arrayOffset()+bytes.position(),cp=chars.arrayOffset()+chars.position();
+		int n=Math.min(bytes.remaining(),chars.remaining()),i=0;
+		if(fast==FAST_LATIN1)for(;i<n;i++)c[cp+i]=(char)(b[bp+i]&0xFF);
+		else for(;i<n;i++){
+			byte v=b[bp+i];
+			if(v<0)break;//非ASCII字符交给解码器处理
+			c[cp+i]=(char)v;
+		}
+		((Buffer)bytes).position(bytes.position()+i);
+		((Buffer)chars).position(chars.position()+i);
+		return i;
+	}
+
+	/**
+	 * 将已解码的字符输出并清空
+	 * @param out 输出目标
+	 * @return 输出的字符数
+	 * @throws IOException 写入失败
+	 */
+	private int drain(Appendable out)throws IOException{
+		((Buffer)chars).flip();
+		int n=chars.remaining();
+		if(n>0){
+			if(out instanceof StringBuilder)((StringBuilder)out).append(chars.array(),chars.arrayOffset(),n);
+			else if(out instanceof Writer)((Writer)out).write(chars.array(),chars.arrayOffset(),n);
+			else out.append(chars);
+		}
+		((Buffer)chars).clear();
+		return n;
+	}
+
+	/**
+	 * 解码缓冲区中的数据
+	 * @param out 输出目标
+	 * @param eof 是否已经没有更多的输入
+	 * @return 输出的字符数
+	 * @throws IOException 写入失败或者输入无效
+	 */
+	private long decodeBuffer(Appendable out,boolean eof)throws IOException{
+		long total=0;
+		for(;;){
+			fastDecode();
+			CoderResult cr=decoder.decode(bytes,chars,eof);
+			if(cr.isError())cr.throwException();
+			total+=drain(out);
+			if(cr.isUnderflow())break;//剩余的不完整字符等待更多输入
+		}
+		return total;
+	}
+
+	/**
+	 * 解码输入流，输出到out中
+	 * （注：不会关闭输入流）
+	 * @param in 输入流（读取来源）
+	 * @param out 输出目标
+	 * @param limit 最多读取的字节数（小于0时表示读取到结尾）
+	 * @return 输出的字符数
+	 * @throws IOException 读取、写入失败或者输入无效
+	 */
+	public long decode(InputStream in,Appendable out,long limit)throws IOException{
+		if(busy)throw new IllegalStateException("decoder is already in use");
+		busy=true;
+		try{
+			decoder.reset();
+			((Buffer)bytes).clear();
+			((Buffer)chars).clear();
+			long remaining=limit<0?Long.MAX_VALUE:limit,total=0;
+			boolean eof=false;
+			while(!eof){
+				int n=(int)Math.min(bytes.remaining(),remaining),r=-1;
+				if(n>0)r=in.read(bytes.array(),bytes.arrayOffset()+bytes.position(),n);
+				if(r<0)eof=true;//小于0时说明到达了结尾
+				else{
+					((Buffer)bytes).position(bytes.position()+r);
+					remaining-=r;
+				}
+				((Buffer)bytes).flip();
+				total+=decodeBuffer(out,eof);
+				bytes.compact();
+			}
+			while(decoder.flush(chars).isOverflow())total+=drain(out);
+			total+=drain(out);
+			return total;
+		}finally{
+			busy=false;
+		}
+	}
+
+	/**
+	 * 解码输入流，输出到out中
+	 * 实际调用{@link #decode(InputStream,Appendable,long)}
+	 * （注：读取到结尾，不会关闭输入流）
+	 * @param in 输入流（读取来源）
+	 * @param out 输出目标
+	 * @return 输出的字符数
+	 * @throws IOException 读取、写入失败或者输入无效
+	 */
+	public long decode(InputStream in,Appendable out)throws IOException{
+		return decode(in,out,-1);
+	}
+
+	/**
+	 * 解码输入流为字符串
+	 * 实际调用{@link #decode(InputStream,Appendable,long)}
+	 * （注：不会关闭输入流）
+	 * @param in 输入流（读取来源）
+	 * @param limit 最多读取的字节数（小于0时表示读取到结尾）
+	 * @return 字符串
+	 * @throws IOException 读取失败或者输入无效
+	 */
+	public String decode(InputStream in,long limit)throws IOException{
+		long hint=limit>=0?limit:in.available();
+		StringBuilder sb=new StringBuilder((int)Math.max(16,Math.min(hint,1<<24)));//预期的字符数不超过字节数
+		decode(in,sb,limit);
+		return sb.toString();
+	}
+}
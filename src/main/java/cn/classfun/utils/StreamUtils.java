@@ -1,8 +1,21 @@
 package cn.classfun.utils;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Checksum;
 /**
  * 输入输出流工具
  */
@@ -11,22 +24,55 @@ public final class StreamUtils {
 
 	/**
 	 * 将输入流复制到输出流中
+	 * 当两端都是文件流（{@link FileInputStream}与{@link FileOutputStream}）时，
+	 * 使用{@link FileChannel#transferTo}由内核直接复制，不经过堆内存
 	 * @param in 输入流（复制的来源）
 	 * @param out 输出流（复制的目标）
 	 * @param buffer_size 单次读取以及写入的大小
 	 * @param close 是否在复制完成后自动关闭
+	 * @param pool 缓冲区池（为null时直接分配）
+	 * @return 复制的字节数
 	 * @throws IOException 读取或者写入失败
 	 */
-	public static void stream2stream(InputStream in,OutputStream out,int buffer_size,boolean close)throws IOException{
-		byte[]b=new byte[buffer_size];
-		int len;
-		while((len=in.read(b))>=0)//小于0时说明到达了结尾
-			out.write(b,0,len);//有时候读到结尾的时候b后面会是空的，所以要指定成功读入的大小
+	public static long stream2stream(InputStream in,OutputStream out,int buffer_size,boolean close,BufferPool pool)throws IOException{
+		long start=IOMetrics.begin();
+		long total=0;
+		if(in instanceof FileInputStream&&out instanceof FileOutputStream){//文件到文件，使用零拷贝
+			total=channel2channel(((FileInputStream)in).getChannel(),((FileOutputStream)out).getChannel(),buffer_size,false,pool);
+		}else{
+			byte[]b=pool==null?new byte[buffer_size]:pool.acquire(buffer_size);
+			try{
+				int len;
+				while((len=in.read(b,0,buffer_size))>=0){//小于0时说明到达了结尾
+					out.write(b,0,len);//有时候读到结尾的时候b后面会是空的，所以要指定成功读入的大小
+					total+=len;
+				}
+			}finally{
+				if(pool!=null)pool.release(b);
+			}
+		}
 		out.flush();//清空缓冲区
 		if(close){//关闭流以节省资源
 			in.close();
 			out.close();
 		}
+		IOMetrics.end(IOMetrics.Op.STREAM2STREAM,start,total,buffer_size);
+		return total;
+	}
+
+	/**
+	 * 将输入流复制到输出流中
+	 * 实际调用：{@link #stream2stream(InputStream,OutputStream,int,boolean,BufferPool)}
+	 * （注：使用默认缓冲区池{@link BufferPool#DEFAULT}）
+	 * @param in 输入流（复制的来源）
+	 * @param out 输出流（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @param close 是否在复制完成后自动关闭
+	 * @return 复制的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	public static long stream2stream(InputStream in,OutputStream out,int buffer_size,boolean close)throws IOException{
+		return stream2stream(in,out,buffer_size,close,BufferPool.DEFAULT);
 	}
 
 	/**
@@ -36,27 +82,309 @@ public final class StreamUtils {
 	 * @param in 输入流（复制的来源）
 	 * @param out 输出流（复制的目标）
 	 * @param buffer_size 单次读取以及写入的大小
+	 * @return 复制的字节数
 	 * @throws IOException 读取或者写入失败
 	 */
-	public static void stream2stream(InputStream in,OutputStream out,int buffer_size)throws IOException{
-		stream2stream(in,out,buffer_size,true);
+	public static long stream2stream(InputStream in,OutputStream out,int buffer_size)throws IOException{
+		return stream2stream(in,out,buffer_size,true);
+	}
+
+	/**
+	 * 将输入流复制到输出流中，同时计算摘要以及校验和
+	 * 每一块数据读取后先更新所有的摘要以及校验和再写入，只经过一次缓冲区，不需要复制完成后再读取一次
+	 * （注：没有摘要以及校验和时实际调用{@link #stream2stream(InputStream,OutputStream,int,boolean,BufferPool)}，
+	 * 复制完成后通过{@link MessageDigest#digest()}以及{@link Checksum#getValue()}获取结果）
+	 * <p>示例:</p>
+	 * <p>  MessageDigest sha=MessageDigest.getInstance("SHA-256");</p>
+	 * <p>  CRC32 crc=new CRC32();</p>
+	 * <p>  stream2stream(in,out,8192,true,BufferPool.DEFAULT,new MessageDigest[]{sha},new Checksum[]{crc});</p>
+	 * @param in 输入流（复制的来源）
+	 * @param out 输出流（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @param close 是否在复制完成后自动关闭
+	 * @param pool 缓冲区池（为null时直接分配）
+	 * @param digests 需要更新的摘要（可以为null）
+	 * @param checksums 需要更新的校验和（可以为null）
+	 * @return 复制的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	public static long stream2stream(InputStream in,OutputStream out,int buffer_size,boolean close,BufferPool pool,MessageDigest[]digests,Checksum[]checksums)throws IOException{
+		if(digests==null)digests=new MessageDigest[0];
+		if(checksums==null)checksums=new Checksum[0];
+		if(digests.length==0&&checksums.length==0)return stream2stream(in,out,buffer_size,close,pool);
+		long start=IOMetrics.begin();
+		long total=0;
+		byte[]b=pool==null?new byte[buffer_size]:pool.acquire(buffer_size);
+		try{
+			int len;
+			while((len=in.read(b,0,buffer_size))>=0){
+				for(MessageDigest d:digests)d.update(b,0,len);
+				for(Checksum c:checksums)c.update(b,0,len);
+				out.write(b,0,len);
+				total+=len;
+			}
+		}finally{
+			if(pool!=null)pool.release(b);
+		}
+		out.flush();//清空缓冲区
+		if(close){//关闭流以节省资源
+			in.close();
+			out.close();
+		}
+		IOMetrics.end(IOMetrics.Op.STREAM2STREAM,start,total,buffer_size);
+		return total;
+	}
+
+	/**
+	 * 将输入流编码（压缩）后写入输出流
+	 * 编码直接在两个流之间进行，缓冲区从默认缓冲区池{@link BufferPool#DEFAULT}中获取
+	 * <p>示例:</p>
+	 * <p>  stream2compressed(in,out,StreamCodec.parallelGzip(6),65536,true)</p>
+	 * @see StreamCodec#encode(InputStream,OutputStream,int,BufferPool)
+	 * @param in 输入流（原始数据）
+	 * @param out 输出流（编码后的数据）
+	 * @param codec 使用的编码（例如{@link StreamCodec#gzip(int)}）
+	 * @param buffer_size 缓冲区的大小
+	 * @param close 是否在完成后自动关闭
+	 * @return 写入输出流的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	public static long stream2compressed(InputStream in,OutputStream out,StreamCodec codec,int buffer_size,boolean close)throws IOException{
+		try{
+			return codec.encode(in,out,buffer_size,BufferPool.DEFAULT);
+		}finally{
+			if(close){//关闭流以节省资源
+				try{in.close();}
+				finally{out.close();}
+			}
+		}
+	}
+
+	/**
+	 * 将输入流解码（解压）后写入输出流
+	 * 解码直接在两个流之间进行，缓冲区从默认缓冲区池{@link BufferPool#DEFAULT}中获取
+	 * @see StreamCodec#decode(InputStream,OutputStream,int,BufferPool)
+	 * @param in 输入流（编码后的数据）
+	 * @param out 输出流（原始数据）
+	 * @param codec 使用的编码（例如{@link StreamCodec#gzip()}）
+	 * @param buffer_size 缓冲区的大小
+	 * @param close 是否在完成后自动关闭
+	 * @return 写入输出流的字节数
+	 * @throws IOException 读取或者写入失败，或者数据格式错误
+	 */
+	public static long compressed2stream(InputStream in,OutputStream out,StreamCodec codec,int buffer_size,boolean close)throws IOException{
+		try{
+			return codec.decode(in,out,buffer_size,BufferPool.DEFAULT);
+		}finally{
+			if(close){//关闭流以节省资源
+				try{in.close();}
+				finally{out.close();}
+			}
+		}
+	}
+
+	/**
+	 * 将输入流解码（解压）成二进制数组
+	 * 实际调用{@link #compressed2stream(InputStream,OutputStream,StreamCodec,int,boolean)}
+	 * @param in 输入流（编码后的数据）
+	 * @param codec 使用的编码（例如{@link StreamCodec#gzip()}）
+	 * @param close 是否自动关闭
+	 * @return 二进制数组（解码后的数据）
+	 * @throws IOException 读取失败或者数据格式错误
+	 */
+	public static byte[] compressed2bytes(InputStream in,StreamCodec codec,boolean close)throws IOException{
+		ByteArrayOutputStream out=new ByteArrayOutputStream(Math.max(32,in.available()*2));
+		try{
+			compressed2stream(in,out,codec,8192,false);
+		}finally{
+			if(close)in.close();//关闭流以节省资源
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * 将输入通道复制到输出通道中
+	 * 当输入为{@link FileChannel}时使用{@link FileChannel#transferTo}，
+	 * 当输出为{@link FileChannel}时使用{@link FileChannel#transferFrom}，
+	 * 由内核直接复制；否则使用直接缓冲区循环复制
+	 * （注：通道必须为阻塞模式）
+	 * @param in 输入通道（复制的来源）
+	 * @param out 输出通道（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @param close 是否在复制完成后自动关闭
+	 * @param pool 缓冲区池（为null时直接分配）
+	 * @return 复制的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	public static long channel2channel(ReadableByteChannel in,WritableByteChannel out,int buffer_size,boolean close,BufferPool pool)throws IOException{
+		long start=IOMetrics.begin();
+		long total=0,n;
+		if(in instanceof FileChannel){//从当前位置开始由内核发送到目标
+			FileChannel src=(FileChannel)in;
+			long pos=src.position();
+			while((n=src.transferTo(pos,Integer.MAX_VALUE,out))>0){pos+=n;total+=n;}
+			src.position(pos);//transferTo不会更新位置
+		}else if(out instanceof FileChannel){//由内核从来源写入到当前位置
+			FileChannel dst=(FileChannel)out;
+			long pos=dst.position();
+			while((n=dst.transferFrom(in,pos,buffer_size))>0){pos+=n;total+=n;}
+			dst.position(pos);//transferFrom不会更新位置
+		}else{
+			ByteBuffer b=pool==null?ByteBuffer.allocateDirect(buffer_size):pool.acquireDirect(buffer_size);
+			try{
+				((Buffer)b).limit(buffer_size);
+				while(in.read(b)>=0){
+					((Buffer)b).flip();
+					while(b.hasRemaining())total+=out.write(b);
+					((Buffer)b).clear().limit(buffer_size);
+				}
+			}finally{
+				if(pool!=null)pool.releaseDirect(b);
+			}
+		}
+		if(close){//关闭通道以节省资源
+			in.close();
+			out.close();
+		}
+		IOMetrics.end(IOMetrics.Op.CHANNEL2CHANNEL,start,total,buffer_size);
+		return total;
+	}
+
+	/**
+	 * 将输入通道复制到输出通道中
+	 * 实际调用：{@link #channel2channel(ReadableByteChannel,WritableByteChannel,int,boolean,BufferPool)}
+	 * （注：使用默认缓冲区池{@link BufferPool#DEFAULT}）
+	 * @param in 输入通道（复制的来源）
+	 * @param out 输出通道（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @param close 是否在复制完成后自动关闭
+	 * @return 复制的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	public static long channel2channel(ReadableByteChannel in,WritableByteChannel out,int buffer_size,boolean close)throws IOException{
+		return channel2channel(in,out,buffer_size,close,BufferPool.DEFAULT);
+	}
+
+	/**
+	 * 将输入通道复制到输出通道中
+	 * 实际调用：{@link #channel2channel(ReadableByteChannel,WritableByteChannel,int,boolean)}
+	 * （注：未指定close时默认为true）
+	 * @param in 输入通道（复制的来源）
+	 * @param out 输出通道（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @return 复制的字节数
+	 * @throws IOException 读取或者写入失败
+	 */
+	public static long channel2channel(ReadableByteChannel in,WritableByteChannel out,int buffer_size)throws IOException{
+		return channel2channel(in,out,buffer_size,true);
 	}
 
 	/**
 	 * 将输入流读取成二进制数组
+	 * 读取直到达到指定的大小或者到达结尾
+	 * （注：读取到指定的大小时直接返回，不复制数组）
 	 * @param in 输入流（读取来源）
-	 * @param size 读取的大小
+	 * @param size 最多读取的大小
 	 * @param close 是否自动关闭
 	 * @return 二进制数组（读取文件成功后的数据）
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static byte[] stream2bytes(InputStream in,int size,boolean close)throws IOException{
-		byte[]b=new byte[size];
-		int l=in.read(b);
-		byte[]c=new byte[l];//可能无法读取到预期的大小
-		System.arraycopy(b,0,c,0,l);//裁减byte数组
-		if(close)in.close();//关闭流以节省资源
-		return c;
+		long start=IOMetrics.begin();
+		try{
+			ChunkedBytes b=new ChunkedBytes(size);
+			b.read(in,size);//可能无法读取到预期的大小
+			byte[]r=b.toBytes();
+			IOMetrics.end(IOMetrics.Op.STREAM2BYTES,start,r.length,0);
+			return r;
+		}finally{
+			if(close)in.close();//关闭流以节省资源
+		}
+	}
+
+	/**
+	 * 将输入流读取成二进制数组
+	 * 读取直到输入流的结尾，按块增长而不是反复复制
+	 * （注：实际大小与hint相同时直接返回，不复制数组）
+	 * @see ChunkedBytes
+	 * @param in 输入流（读取来源）
+	 * @param hint 预期的大小（小于等于0时表示未知）
+	 * @param max 允许的最大大小（超过时抛出异常）
+	 * @param close 是否自动关闭
+	 * @return 二进制数组（读取文件成功后的数据）
+	 * @throws IOException 找不到文件、读取失败或者超过最大大小等
+	 */
+	public static byte[] stream2bytes(InputStream in,int hint,long max,boolean close)throws IOException{
+		long start=IOMetrics.begin();
+		try{
+			ChunkedBytes b=new ChunkedBytes(hint,max);
+			b.read(in);
+			byte[]r=b.toBytes();
+			IOMetrics.end(IOMetrics.Op.STREAM2BYTES,start,r.length,0);
+			return r;
+		}finally{
+			if(close)in.close();//关闭流以节省资源
+		}
+	}
+
+	/**
+	 * 将输入流读取成二进制数组
+	 * 读取直到输入流的结尾，每一块都从缓冲区池中获取，最后复制一次到结果中
+	 * @see ChunkedBytes
+	 * @param in 输入流（读取来源）
+	 * @param hint 预期的大小（小于等于0时表示未知）
+	 * @param max 允许的最大大小（超过时抛出异常）
+	 * @param close 是否自动关闭
+	 * @param pool 缓冲区池
+	 * @return 二进制数组（读取文件成功后的数据）
+	 * @throws IOException 找不到文件、读取失败或者超过最大大小等
+	 */
+	public static byte[] stream2bytes(InputStream in,int hint,long max,boolean close,BufferPool pool)throws IOException{
+		long start=IOMetrics.begin();
+		ChunkedBytes b=new ChunkedBytes(hint,max,pool);
+		try{
+			b.read(in);
+			byte[]r=b.toBytes();
+			IOMetrics.end(IOMetrics.Op.STREAM2BYTES,start,r.length,0);
+			return r;
+		}finally{
+			b.recycle();
+			if(close)in.close();//关闭流以节省资源
+		}
+	}
+
+	/**
+	 * 将输入流读取成缓冲区
+	 * 读取直到输入流的结尾，按块增长而不是反复复制
+	 * （注：数据只有一块时直接包装，不复制数组）
+	 * @see ChunkedBytes
+	 * @param in 输入流（读取来源）
+	 * @param hint 预期的大小（小于等于0时表示未知）
+	 * @param max 允许的最大大小（超过时抛出异常）
+	 * @param close 是否自动关闭
+	 * @return 缓冲区（读取文件成功后的数据）
+	 * @throws IOException 找不到文件、读取失败或者超过最大大小等
+	 */
+	public static ByteBuffer stream2buffer(InputStream in,int hint,long max,boolean close)throws IOException{
+		try{
+			ChunkedBytes b=new ChunkedBytes(hint,max);
+			b.read(in);
+			return b.toBuffer();
+		}finally{
+			if(close)in.close();//关闭流以节省资源
+		}
+	}
+
+	/**
+	 * 将输入流读取成缓冲区
+	 * 实际调用{@link #stream2buffer(InputStream,int,long,boolean)}
+	 * （注：未指定close时默认为true，预期的大小为{@link InputStream#available()}）
+	 * @param in 输入流（读取来源）
+	 * @return 缓冲区（读取文件成功后的数据）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static ByteBuffer stream2buffer(InputStream in)throws IOException{
+		return stream2buffer(in,in.available(),ChunkedBytes.MAX_ARRAY_SIZE,true);
 	}
 
 	/**
@@ -86,32 +414,103 @@ public final class StreamUtils {
 
 	/**
 	 * 将输入流读取成二进制数组
-	 * 实际调用{@link #stream2bytes(InputStream,int,boolean)}
-	 * （注：默认读取大小为输入流中可读的长度{@link InputStream#available()}
+	 * 读取直到输入流的结尾
+	 * 实际调用{@link #stream2bytes(InputStream,int,long,boolean)}
+	 * （注：预期的大小为输入流中可读的长度{@link InputStream#available()}）
 	 * @param in 输入流（读取来源）
 	 * @param close 是否自动关闭
 	 * @return 二进制数组（读取文件成功后的数据）
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static byte[] stream2bytes(InputStream in,boolean close)throws IOException{
-		return stream2bytes(in,in.available(),close);
+		return stream2bytes(in,in.available(),ChunkedBytes.MAX_ARRAY_SIZE,close);
+	}
+
+	/**
+	 * 将输入流读取成字符串（指定字符集）
+	 * 读取直到输入流的结尾，每一块都从缓冲区池中获取，使用完成后归还
+	 * @see ChunkedBytes
+	 * @param in 输入流（读取来源）
+	 * @param charset 使用的字符集
+	 * @param close 是否自动关闭
+	 * @param pool 缓冲区池
+	 * @return 字符串（读取文件成功后的数据）
+	 * @throws IOException 找不到文件或者读取失败等
+	 */
+	public static String stream2string(InputStream in,Charset charset,boolean close,BufferPool pool)throws IOException{
+		long start=IOMetrics.begin();
+		ChunkedBytes b=new ChunkedBytes(in.available(),ChunkedBytes.MAX_ARRAY_SIZE,pool);
+		try{
+			b.read(in);
+			String r=b.toString(charset);
+			IOMetrics.end(IOMetrics.Op.STREAM2STRING,start,r.length(),0);
+			return r;
+		}finally{
+			b.recycle();
+			if(close)in.close();//关闭流以节省资源
+		}
+	}
+
+	/**
+	 * 将输入流解码后输出到out中（指定字符集）
+	 * 逐块解码，不需要先读取成完整的二进制数组
+	 * @see StreamDecoder
+	 * @param in 输入流（读取来源）
+	 * @param out 输出目标（例如{@link StringBuilder}或者{@link java.io.Writer}）
+	 * @param charset 使用的字符集
+	 * @param action 遇到无效输入时的处理方式（{@link CodingErrorAction#REPORT}时抛出异常）
+	 * @param close 是否自动关闭
+	 * @return 输出的字符数
+	 * @throws IOException 找不到文件、读取失败或者输入无效等
+	 */
+	public static long stream2appendable(InputStream in,Appendable out,Charset charset,CodingErrorAction action,boolean close)throws IOException{
+		try{
+			return StreamDecoder.get(charset,action).decode(in,out);
+		}finally{
+			if(close)in.close();//关闭流以节省资源
+		}
+	}
+
+	/**
+	 * 将输入流读取成字符串（指定字符集）
+	 * 逐块解码，不需要先读取成完整的二进制数组
+	 * @see StreamDecoder
+	 * @param in 输入流（读取来源）
+	 * @param size 最多读取的大小（小于0时表示读取到结尾）
+	 * @param charset 使用的字符集
+	 * @param action 遇到无效输入时的处理方式（{@link CodingErrorAction#REPORT}时抛出异常）
+	 * @param close 是否自动关闭
+	 * @return 字符串（读取文件成功后的数据）
+	 * @throws IOException 找不到文件、读取失败或者输入无效等
+	 */
+	public static String stream2string(InputStream in,long size,Charset charset,CodingErrorAction action,boolean close)throws IOException{
+		long start=IOMetrics.begin();
+		try{
+			String r=StreamDecoder.get(charset,action).decode(in,size);
+			IOMetrics.end(IOMetrics.Op.STREAM2STRING,start,r.length(),0);
+			return r;
+		}finally{
+			if(close)in.close();//关闭流以节省资源
+		}
 	}
 
 	/**
 	 * 将输入流读取成字符串
-	 * 实际调用{@link #stream2bytes(InputStream,boolean)}
+	 * 实际调用{@link #stream2string(InputStream,Charset,boolean)}
+	 * （注：使用平台默认字符集{@link Charset#defaultCharset()}）
 	 * @param in 输入流（读取来源）
 	 * @param close 是否自动关闭
 	 * @return 字符串（读取文件成功后的数据）
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static String stream2string(InputStream in,boolean close)throws IOException{
-		return new String(stream2bytes(in,close));//二进制转字符串
+		return stream2string(in,Charset.defaultCharset(),close);
 	}
 
 	/**
 	 * 将输入流读取成字符串
-	 * 实际调用{@link #stream2bytes(InputStream,int,boolean)}
+	 * 实际调用{@link #stream2string(InputStream,int,Charset,boolean)}
+	 * （注：使用平台默认字符集{@link Charset#defaultCharset()}）
 	 * @param in 输入流（读取来源）
 	 * @param close 是否自动关闭
 	 * @param size 读取的大小
@@ -119,12 +518,13 @@ public final class StreamUtils {
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static String stream2string(InputStream in,int size,boolean close)throws IOException{
-		return new String(stream2bytes(in,size,close));//二进制转字符串
+		return stream2string(in,size,Charset.defaultCharset(),close);
 	}
 
 	/**
 	 * 将输入流读取成字符串（指定字符集）
-	 * 实际调用{@link #stream2bytes(InputStream,boolean)}
+	 * 实际调用{@link #stream2string(InputStream,long,Charset,CodingErrorAction,boolean)}
+	 * （注：无效的输入会被替换）
 	 * @param in 输入流（读取来源）
 	 * @param close 是否自动关闭
 	 * @param charset 使用的字符集
@@ -132,12 +532,13 @@ public final class StreamUtils {
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static String stream2string(InputStream in,Charset charset,boolean close)throws IOException{
-		return new String(stream2bytes(in,close),charset);//二进制转字符串（指定字符集）
+		return stream2string(in,-1,charset,CodingErrorAction.REPLACE,close);
 	}
 
 	/**
 	 * 将输入流读取成字符串（指定字符集）
-	 * 实际调用{@link #stream2bytes(InputStream,int,boolean)}
+	 * 实际调用{@link #stream2string(InputStream,long,Charset,CodingErrorAction,boolean)}
+	 * （注：无效的输入会被替换）
 	 * @param in 输入流（读取来源）
 	 * @param size 读取的大小
 	 * @param close 是否自动关闭
@@ -146,7 +547,7 @@ public final class StreamUtils {
 	 * @throws IOException 找不到文件或者读取失败等
 	 */
 	public static String stream2string(InputStream in,int size,Charset charset,boolean close)throws IOException{
-		return new String(stream2bytes(in,size,close),charset);//二进制转字符串（指定字符集）
+		return stream2string(in,size,charset,CodingErrorAction.REPLACE,close);
 	}
 
 	/**
@@ -199,4 +600,53 @@ public final class StreamUtils {
 	public static String stream2string(InputStream in,int size)throws IOException{
 		return stream2string(in,size,true);
 	}
+
+	/**
+	 * 按分隔符逐条读取输入流中的记录
+	 * （注：关闭读取器时同时关闭输入流）
+	 * @see RecordReader
+	 * @param in 输入流（读取来源）
+	 * @param charset 使用的字符集
+	 * @param delimiter 记录分隔符（不能为空）
+	 * @return 记录读取器
+	 */
+	public static RecordReader stream2records(InputStream in,Charset charset,String delimiter){
+		return new RecordReader(new InputStreamReader(in,charset),delimiter);
+	}
+
+	/**
+	 * 按行读取输入流
+	 * （注：以'\n'分隔，并且去除行结尾的'\r'，关闭读取器时同时关闭输入流）
+	 * @see RecordReader#lines(java.io.Reader)
+	 * @param in 输入流（读取来源）
+	 * @param charset 使用的字符集
+	 * @return 记录读取器
+	 */
+	public static RecordReader stream2lines(InputStream in,Charset charset){
+		return RecordReader.lines(new InputStreamReader(in,charset));
+	}
+
+	/**
+	 * 异步将输入流读取成二进制数组
+	 * 实际调用{@link AsyncIO#read(InputStream,boolean)}
+	 * （注：使用默认的{@link AsyncIO#DEFAULT}，读取完成后自动关闭）
+	 * @param in 输入流（读取来源）
+	 * @return 二进制数组（读取成功后的数据）
+	 */
+	public static CompletableFuture<byte[]> readAsync(InputStream in){
+		return AsyncIO.DEFAULT.read(in,true);
+	}
+
+	/**
+	 * 异步将输入流复制到输出流中
+	 * 实际调用{@link AsyncIO#copy(InputStream,OutputStream,int,boolean)}
+	 * （注：使用默认的{@link AsyncIO#DEFAULT}，复制完成后自动关闭）
+	 * @param in 输入流（复制的来源）
+	 * @param out 输出流（复制的目标）
+	 * @param buffer_size 单次读取以及写入的大小
+	 * @return 复制的字节数
+	 */
+	public static CompletableFuture<Long> copyAsync(InputStream in,OutputStream out,int buffer_size){
+		return AsyncIO.DEFAULT.copy(in,out,buffer_size,true);
+	}
 }
@@ -1,5 +1,15 @@
 package cn.classfun.utils;
-import static java.lang.String.format;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static cn.classfun.utils.ObjectUtils.requireNonNull;
 /**
  * 字符串工具
  */
@@ -23,10 +33,26 @@ public final class StringUtils {
 	 * @return 是否有效
 	 */
 	public static boolean validString(String check,String valid){
-		for(char c:check.toCharArray())if(!valid.contains(String.valueOf(c)))return false;
+		for(int i=0,l=check.length();i<l;i++)if(valid.indexOf(check.charAt(i))<0)return false;
 		return true;
 	}
 
+	/**
+	 * 检测check之中只能出现valid中的字符
+	 * 用于判断是否出现非法字符，需要反复检测时请先编译字符集合。
+	 * <p>示例:</p>
+	 * <p>  validString("123",CharClass.DEC)=true</p>
+	 * <p>  validString("1 23",CharClass.DEC)=false</p>
+	 * <p>  validString("",CharClass.DEC)=true</p>
+	 * @see CharClass#of(CharSequence)
+	 * @param check 需要检测的字符
+	 * @param valid 预编译的有效字符集合
+	 * @return 是否有效
+	 */
+	public static boolean validString(CharSequence check,CharClass valid){
+		return valid.matchesAll(check);
+	}
+
 	/**
 	 * 检测check之中只能出现{@link #valid}中指定的字符
 	 * 用于判断是否出现非法字符。
@@ -41,7 +67,7 @@ public final class StringUtils {
 	 * @return 是否有效
 	 */
 	public static boolean validString(String check){
-		return validString(check,valid);
+		return CharClass.VALID.matchesAll(check);
 	}
 
 	/**
@@ -81,24 +107,165 @@ public final class StringUtils {
 		return arr;
 	}
 
+	/**
+	 * 按长度切割字符串，返回不复制内容的视图
+	 * 每一段都是原字符串的{@link CharBuffer}视图，按需生成
+	 * <p>示例:</p>
+	 * <p>  spiltLengthIterator("1234567890",4) -&gt; "1234","5678","90"</p>
+	 * @see #spiltLength(String,int)
+	 * @param source 原字符串
+	 * @param length 每一段的长度
+	 * @return 每一段的迭代器
+	 */
+	public static Iterator<CharSequence> spiltLengthIterator(CharSequence source,int length){
+		requireNonNull(source);
+		if(length<=0)throw new IllegalArgumentException("length must be positive");
+		return new Iterator<CharSequence>(){
+			private int pos=0;
+			@Override
+			public boolean hasNext(){return pos<source.length();}
+			@Override
+			public CharSequence next(){
+				int len=source.length();
+				if(pos>=len)throw new NoSuchElementException();
+				int start=pos;
+				pos=length>len-start?len:start+length;
+				return CharBuffer.wrap(source,start,pos);
+			}
+		};
+	}
+
+	/**
+	 * 按长度切割字符串，返回不复制内容的视图的流
+	 * （注：流的大小已知，可以并行处理）
+	 * @see #spiltLengthIterator(CharSequence,int)
+	 * @param source 原字符串
+	 * @param length 每一段的长度
+	 * @return 每一段的流
+	 */
+	public static Stream<CharSequence> spiltLengthStream(CharSequence source,int length){
+		requireNonNull(source);
+		if(length<=0)throw new IllegalArgumentException("length must be positive");
+		int len=source.length();
+		return IntStream.range(0,(int)(((long)len+length-1)/length)).mapToObj(i->{
+			int start=i*length;
+			return CharBuffer.wrap(source,start,length>len-start?len:start+length);
+		});
+	}
+
+	/**
+	 * 在字符串中查找另一个字符串
+	 * @param source 原字符串
+	 * @param target 需要查找的字符串
+	 * @param from 开始位置
+	 * @return 找到的位置（找不到时为-1）
+	 */
+	static int indexOf(CharSequence source,CharSequence target,int from){
+		if(source instanceof String&&target instanceof String)
+			return ((String)source).indexOf((String)target,from);
+		int tl=target.length();
+		if(tl==0)return Math.min(Math.max(from,0),source.length());
+		char f=target.charAt(0);
+		outer:for(int i=Math.max(from,0),e=source.length()-tl;i<=e;i++){
+			if(source.charAt(i)!=f)continue;
+			for(int j=1;j<tl;j++)if(source.charAt(i+j)!=target.charAt(j))continue outer;
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 获取两个字符串之间的字符串，返回不复制内容的视图
+	 * 从from开始查找start，再从start之后查找end
+	 * @param source 原字符串
+	 * @param start 截取的开始
+	 * @param end 截取的结束
+	 * @param tag 返回值是否包含start和end
+	 * @param from 开始查找的位置
+	 * @return 两个字符串之间的字符串的视图（找不到时为null）
+	 */
+	public static CharSequence getBetweenView(CharSequence source,CharSequence start,CharSequence end,boolean tag,int from){
+		int s=indexOf(source,start,from);
+		if(s<0)return null;
+		int e=indexOf(source,end,s+start.length());
+		if(e<0)return null;
+		return tag?CharBuffer.wrap(source,s,e+end.length()):CharBuffer.wrap(source,s+start.length(),e);
+	}
+
+	/**
+	 * 获取两个字符串之间的字符串，返回不复制内容的视图
+	 * @see #getBetweenView(CharSequence,CharSequence,CharSequence,boolean,int)
+	 * @param source 原字符串
+	 * @param start 截取的开始
+	 * @param end 截取的结束
+	 * @param tag 返回值是否包含start和end
+	 * @return 两个字符串之间的字符串的视图（找不到时为null）
+	 */
+	public static CharSequence getBetweenView(CharSequence source,CharSequence start,CharSequence end,boolean tag){
+		return getBetweenView(source,start,end,tag,0);
+	}
+
+	/**
+	 * 获取所有两个字符串之间的字符串，返回不复制内容的视图
+	 * 每次找到后从end之后继续查找
+	 * （注：start和end不能为空，与{@link BetweenMatcher}相同）
+	 * <p>示例:</p>
+	 * <p>  getBetweenAll("&lt;a&gt;&lt;b&gt;c&lt;d&gt;","&lt;","&gt;",false)={"a","b","d"}</p>
+	 * @see #getBetweenView(CharSequence,CharSequence,CharSequence,boolean,int)
+	 * @param source 原字符串
+	 * @param start 截取的开始
+	 * @param end 截取的结束
+	 * @param tag 返回值是否包含start和end
+	 * @return 所有两个字符串之间的字符串的视图
+	 */
+	public static List<CharSequence> getBetweenAll(CharSequence source,CharSequence start,CharSequence end,boolean tag){
+		if(start.length()==0||end.length()==0)throw new IllegalArgumentException("markers must not be empty");
+		List<CharSequence>list=new ArrayList<>();
+		int sl=start.length(),el=end.length();
+		for(int from=0;;){
+			int s=indexOf(source,start,from);
+			if(s<0)break;
+			int e=indexOf(source,end,s+sl);
+			if(e<0)break;
+			list.add(tag?CharBuffer.wrap(source,s,e+el):CharBuffer.wrap(source,s+sl,e));
+			from=e+el;
+		}
+		return list;
+	}
+
+	/**
+	 * 一次遍历获取多组字符串之间的字符串，返回不复制内容的视图
+	 * 实际调用{@link BetweenMatcher#extract(CharSequence)}
+	 * <p>示例:</p>
+	 * <p>  getBetween("a=1;b=2",BetweenMatcher.of(false,"a=",";","b=","\n"))={"1",null}</p>
+	 * @param source 原字符串
+	 * @param matcher 预编译的多组标记
+	 * @return 每一组的内容（找不到时为null）
+	 */
+	public static CharSequence[] getBetween(CharSequence source,BetweenMatcher matcher){
+		return matcher.extract(source);
+	}
+
 	/**
 	 * 获取两个字符串之间的字符串。
-	 * 在source中获取从start开始以end结束的字符串，
+	 * 在source中获取从start开始以end结束的字符串（end从start之后开始查找），
 	 * 如果tag为true，则将start和end包含在返回结果中
 	 * <p>示例:</p>
-	 * <p>  getBetween("abc<def>ghi","<",">",false)="ghi"</p>
+	 * <p>  getBetween("abc<def>ghi","<",">",false)="def"</p>
 	 * <p>  getBetween("12(2345678)90","(",")",true)="(2345678)"</p>
+	 * @see #getBetweenView(CharSequence,CharSequence,CharSequence,boolean)
 	 * @param source 原字符串
 	 * @param start 截取的开始
 	 * @param end 截取的结束
 	 * @param tag 返回值是否包含start和end
-	 * @return 两个字符串之间的字符串
+	 * @return 两个字符串之间的字符串（找不到时为null）
 	 */
 	public static String getBetween(String source,String start,String end,boolean tag){
-		return source.substring(
-			source.indexOf(start)+(tag?0:start.length()),
-			source.indexOf(end)-(tag?end.length():0)
-		);
+		int s=source.indexOf(start);
+		if(s<0)return null;
+		int e=source.indexOf(end,s+start.length());
+		if(e<0)return null;
+		return tag?source.substring(s,e+end.length()):source.substring(s+start.length(),e);
 	}
 	/**
 	 * 将字节数转成可读的带单位字符串
@@ -109,15 +276,48 @@ public final class StringUtils {
 	 * @return 可读的字符串
 	 */
 	public static String formatSize(long size,int step,int dot,String[] units){
-		double value=size;
-		String unit=units[0];
-		if(dot<0)dot=0;
-		for(String s:units){
-			unit=s;
-			if(value<step)break;
-			value/=step;
-		}
-		return format(format("%%.%df%%s",dot),value,unit);
+		return SizeFormat.of(step,dot,units).format(size);
+	}
+
+	/**
+	 * 将字节数转成可读的带单位字符串，追加到sb中
+	 * 实际调用{@link SizeFormat#format(long,StringBuilder)}
+	 * @param sb 输出目标
+	 * @param size 原字节数（长整数）
+	 * @param step 每一级单位的大小（可以为1024或者1000）
+	 * @param dot 保留小数点后的位数 （大于0，如果为零则不保留小数）
+	 * @param units 单位名称
+	 * @return sb
+	 */
+	public static StringBuilder formatSize(StringBuilder sb,long size,int step,int dot,String[]units){
+		return SizeFormat.of(step,dot,units).format(size,sb);
+	}
+
+	/**
+	 * 将字节数转成可读的带单位字符串，追加到sb中
+	 * (使用默认单位{@link #units}以及1024)
+	 * @see #formatSize(StringBuilder,long,int,int,String[])
+	 * @param sb 输出目标
+	 * @param size 原字节数（长整数）
+	 * @param dot 保留小数点后的位数 （大于0，如果为零则不保留小数）
+	 * @return sb
+	 */
+	public static StringBuilder formatSize(StringBuilder sb,long size,int dot){
+		return formatSize(sb,size,1024,dot,units);
+	}
+
+	/**
+	 * 将字节数转成可读的带单位字符串，追加到out中
+	 * 实际调用{@link SizeFormat#format(long,Appendable)}
+	 * @param out 输出目标
+	 * @param size 原字节数（长整数）
+	 * @param step 每一级单位的大小（可以为1024或者1000）
+	 * @param dot 保留小数点后的位数 （大于0，如果为零则不保留小数）
+	 * @param units 单位名称
+	 * @throws IOException 写入失败
+	 */
+	public static void formatSize(Appendable out,long size,int step,int dot,String[]units)throws IOException{
+		SizeFormat.of(step,dot,units).format(size,out);
 	}
 	/**
 	 * 将字节数转成可读的带单位字符串
@@ -184,6 +384,47 @@ public final class StringUtils {
 		return formatSize(size,2,units);
 	}
 
+	/**
+	 * 将带单位的字符串转成字节数（{@link #formatSize(long,int,int,String[])}的相反操作）
+	 * 单位忽略大小写，同时支持去掉结尾'B'的单位（例如"M"）以及IEC单位（例如"MiB"）
+	 * 实际调用{@link SizeFormat#parse(CharSequence)}
+	 * @param s 带单位的字符串
+	 * @param step 每一级单位的大小（可以为1024或者1000）
+	 * @param units 单位名称
+	 * @return 字节数
+	 * @throws NumberFormatException 格式错误，单位无效或者溢出
+	 */
+	public static long parseSize(CharSequence s,int step,String[]units){
+		return SizeFormat.of(step,0,units).parse(s);
+	}
+
+	/**
+	 * 将带单位的字符串转成字节数
+	 * （注：使用默认单位{@link #units}
+	 * @see #parseSize(CharSequence,int,String[])
+	 * @param s 带单位的字符串
+	 * @param step 每一级单位的大小（可以为1024或者1000）
+	 * @return 字节数
+	 */
+	public static long parseSize(CharSequence s,int step){
+		return parseSize(s,step,units);
+	}
+
+	/**
+	 * 将带单位的字符串转成字节数
+	 * (当step未指定时，使用默认1024)
+	 * <p>示例:</p>
+	 * <p>  parseSize("16B")=16</p>
+	 * <p>  parseSize("1.50GB")=1610612736</p>
+	 * <p>  parseSize("512 KiB")=524288</p>
+	 * @see #parseSize(CharSequence,int)
+	 * @param s 带单位的字符串
+	 * @return 字节数
+	 */
+	public static long parseSize(CharSequence s){
+		return parseSize(s,1024);
+	}
+
 
 	/**
 	 * 判断字符是否为十进制的有效值(是否在0-9之间)
@@ -230,9 +471,34 @@ public final class StringUtils {
 	 * @return 字符串的每个字符是否在0-9之间
 	 */
 	public static boolean isStringDec(String s){
-		if(s==null||s.length()<=0)return false;
-		for(char c:s.toCharArray())if(!isCharDec(c))return false;
-		return true;
+		return isStringDec((CharSequence)s);
+	}
+
+	/**
+	 * 判断字符串的每个字符是否为十进制的有效值(是否在0-9之间)
+	 * 逐个字符检测，不复制字符串
+	 * （注：null或者空字符串返回false）
+	 * @see #isStringDec(String)
+	 * @param s 输入字符
+	 * @return 字符串的每个字符是否在0-9之间
+	 */
+	public static boolean isStringDec(CharSequence s){
+		return s!=null&&s.length()>0&&DigitScanner.isDec(s,0,s.length());
+	}
+
+	/**
+	 * 判断二进制数组的每个字节是否为十进制的有效值(是否在0-9之间)
+	 * 用于在解码之前检测原始数据，每次检测8个字节
+	 * （注：长度为0时返回false）
+	 * @see #isStringDec(String)
+	 * @param b 输入二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每个字节是否在0-9之间
+	 */
+	public static boolean isStringDec(byte[]b,int off,int len){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+		return len>0&&DigitScanner.INSTANCE.isDec(b,off,len);
 	}
 
 	/**
@@ -247,9 +513,34 @@ public final class StringUtils {
 	 * @return 字符串的每个字符是否在0-1之间
 	 */
 	public static boolean isStringBin(String s){
-		if(s==null||s.length()<=0)return false;
-		for(char c:s.toCharArray())if(!isCharBin(c))return false;
-		return true;
+		return isStringBin((CharSequence)s);
+	}
+
+	/**
+	 * 判断字符串的每个字符是否为二进制的有效值(是否在0-1之间)
+	 * 逐个字符检测，不复制字符串
+	 * （注：null或者空字符串返回false）
+	 * @see #isStringBin(String)
+	 * @param s 输入字符
+	 * @return 字符串的每个字符是否在0-1之间
+	 */
+	public static boolean isStringBin(CharSequence s){
+		return s!=null&&s.length()>0&&DigitScanner.isBin(s,0,s.length());
+	}
+
+	/**
+	 * 判断二进制数组的每个字节是否为二进制的有效值(是否在0-1之间)
+	 * 用于在解码之前检测原始数据，每次检测8个字节
+	 * （注：长度为0时返回false）
+	 * @see #isStringBin(String)
+	 * @param b 输入二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每个字节是否在0-1之间
+	 */
+	public static boolean isStringBin(byte[]b,int off,int len){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+		return len>0&&DigitScanner.INSTANCE.isBin(b,off,len);
 	}
 
 	/**
@@ -264,9 +555,49 @@ public final class StringUtils {
 	 * @return 字符串是否在0-9之间
 	 */
 	public static boolean isStringHex(String s){
-		if(s==null||s.length()<=0)return false;
-		for(char c:s.toCharArray())if(!isCharHex(c))return false;
-		return true;
+		return isStringHex((CharSequence)s);
+	}
+
+	/**
+	 * 判断字符串的每个字符是否为十六进制的有效值(是否在0-9,a-f,A-F之间)
+	 * 逐个字符检测，不复制字符串
+	 * （注：null或者空字符串返回false）
+	 * @see #isStringHex(String)
+	 * @param s 输入字符
+	 * @return 字符串的每个字符是否在0-9,a-f,A-F之间
+	 */
+	public static boolean isStringHex(CharSequence s){
+		return s!=null&&s.length()>0&&DigitScanner.isHex(s,0,s.length());
+	}
+
+	/**
+	 * 判断二进制数组的每个字节是否为十六进制的有效值(是否在0-9,a-f,A-F之间)
+	 * 用于在解码之前检测原始数据，每次检测8个字节
+	 * （注：长度为0时返回false）
+	 * @see #isStringHex(String)
+	 * @param b 输入二进制数组
+	 * @param off 开始位置
+	 * @param len 长度
+	 * @return 每个字节是否在0-9,a-f,A-F之间
+	 */
+	public static boolean isStringHex(byte[]b,int off,int len){
+		if(off<0||len<0||off+len>b.length)throw new IndexOutOfBoundsException();
+		return len>0&&DigitScanner.INSTANCE.isHex(b,off,len);
+	}
+
+	/**
+	 * 判断字符串的每个字符是否都在指定的字符集合中
+	 * （注：null或者空字符串返回false）
+	 * <p>示例:</p>
+	 * <p>  isStringOf("1234",CharClass.DEC) = true</p>
+	 * <p>  isStringOf("",CharClass.DEC) = false</p>
+	 * @see CharClass#matchesAll(CharSequence)
+	 * @param s 输入字符
+	 * @param cls 预编译的字符集合
+	 * @return 字符串的每个字符是否都在字符集合中
+	 */
+	public static boolean isStringOf(CharSequence s,CharClass cls){
+		return s!=null&&s.length()>0&&cls.matchesAll(s);
 	}
 
 	/**
@@ -281,9 +612,12 @@ public final class StringUtils {
 	 */
 	public static String padLeft(String src,char pad,int len){
 		if(src==null||pad==0||src.length()==len||src.length()==0)return src;
-		StringBuilder sb=new StringBuilder(src);
-		while(sb.length()<len)sb.insert(0,pad);
-		return sb.toString();
+		int n=src.length();
+		if(n>len)return src;
+		char[]c=new char[len];
+		Arrays.fill(c,0,len-n,pad);
+		src.getChars(0,n,c,len-n);
+		return new String(c);
 	}
 
 	/**
@@ -298,8 +632,117 @@ public final class StringUtils {
 	 */
 	public static String padRight(String src,char pad,int len){
 		if(src==null||pad==0||src.length()==len||src.length()==0)return src;
-		StringBuilder sb=new StringBuilder(src);
-		while(sb.length()<len)sb.append(pad);
-		return sb.toString();
+		int n=src.length();
+		if(n>len)return src;
+		char[]c=new char[len];
+		src.getChars(0,n,c,0);
+		Arrays.fill(c,n,len,pad);
+		return new String(c);
+	}
+
+	/**
+	 * 重复追加字符
+	 * @param sb 输出目标
+	 * @param c 字符
+	 * @param n 次数（小于等于0时不追加）
+	 */
+	static void repeat(StringBuilder sb,char c,int n){
+		if(n<=0)return;
+		sb.ensureCapacity(sb.length()+n);
+		for(int i=0;i<n;i++)sb.append(c);
+	}
+
+	/**
+	 * 重复追加字符
+	 * 先填充一个字符数组再分块写入，不逐个字符调用{@link Appendable#append(char)}
+	 * @param out 输出目标
+	 * @param c 字符
+	 * @param n 次数（小于等于0时不追加）
+	 * @throws IOException 写入失败
+	 */
+	static void repeat(Appendable out,char c,int n)throws IOException{
+		if(n<=0)return;
+		if(out instanceof StringBuilder){
+			repeat((StringBuilder)out,c,n);
+			return;
+		}
+		char[]b=new char[Math.min(n,256)];
+		Arrays.fill(b,c);
+		CharBuffer cb=CharBuffer.wrap(b);
+		while(n>0){
+			int k=Math.min(n,b.length);
+			if(out instanceof Writer)((Writer)out).write(b,0,k);
+			else out.append(cb,0,k);
+			n-=k;
+		}
+	}
+
+	/**
+	 * 将字符串追加到sb中，长度没有达到要求时先在左侧追加字符
+	 * 不创建中间字符串
+	 * <p>示例:</p>
+	 * <p>  padLeft(new StringBuilder("x="),"12",'0',4) = "x=0012"</p>
+	 * （注：与{@link #padLeft(String,char,int)}相同，src为null时不追加，src为空或者pad为0时直接追加src）
+	 * @see #padLeft(String,char,int)
+	 * @param sb 输出目标
+	 * @param src 输入字符串
+	 * @param pad 添加字符
+	 * @param len 要求的长度
+	 * @return sb
+	 */
+	public static StringBuilder padLeft(StringBuilder sb,CharSequence src,char pad,int len){
+		if(src==null)return sb;
+		if(pad!=0&&src.length()>0)repeat(sb,pad,len-src.length());
+		return sb.append(src);
+	}
+
+	/**
+	 * 将字符串追加到sb中，长度没有达到要求时再在右侧追加字符
+	 * 不创建中间字符串
+	 * （注：与{@link #padRight(String,char,int)}相同，src为null时不追加，src为空或者pad为0时直接追加src）
+	 * @see #padRight(String,char,int)
+	 * @param sb 输出目标
+	 * @param src 输入字符串
+	 * @param pad 添加字符
+	 * @param len 要求的长度
+	 * @return sb
+	 */
+	public static StringBuilder padRight(StringBuilder sb,CharSequence src,char pad,int len){
+		if(src==null)return sb;
+		sb.append(src);
+		if(pad!=0&&src.length()>0)repeat(sb,pad,len-src.length());
+		return sb;
+	}
+
+	/**
+	 * 将字符串写入out中，长度没有达到要求时先在左侧写入字符
+	 * （注：与{@link #padLeft(String,char,int)}相同，src为null时不写入，src为空或者pad为0时直接写入src）
+	 * @see #padLeft(StringBuilder,CharSequence,char,int)
+	 * @param out 输出目标
+	 * @param src 输入字符串
+	 * @param pad 添加字符
+	 * @param len 要求的长度
+	 * @throws IOException 写入失败
+	 */
+	public static void padLeft(Appendable out,CharSequence src,char pad,int len)throws IOException{
+		if(src==null)return;
+		if(pad!=0&&src.length()>0)repeat(out,pad,len-src.length());
+		out.append(src);
+	}
+
+	/**
+	 * 将字符串写入out中，长度没有达到要求时再在右侧写入字符
+	 * （注：与{@link #padRight(String,char,int)}相同，src为null时不写入，src为空或者pad为0时直接写入src）
+	 * @see #padRight(StringBuilder,CharSequence,char,int)
+	 * @param out 输出目标
+	 * @param src 输入字符串
+	 * @param pad 添加字符
+	 * @param len 要求的长度
+	 * @throws IOException 写入失败
+	 */
+	public static void padRight(Appendable out,CharSequence src,char pad,int len)throws IOException{
+		if(src==null)return;
+		out.append(src);
+		if(pad!=0&&src.length()>0)repeat(out,pad,len-src.length());
 	}
 }